@@ -0,0 +1,91 @@
+package base;
+
+import java.util.Arrays;
+
+/**
+ * Ein int-Array, das in Blöcke fester Größe aufgeteilt ist und sich Blöcke mit seinen Kopien teilt.
+ * {@link #snapshot()} kopiert nur die Tabelle der Blöcke, erst beim ersten Schreiben in einen geteilten
+ * Block wird dieser Block kopiert (Copy-on-Write). Eine Kopie kostet daher nur Speicher für die
+ * geänderten Blöcke, und zwei Kopien können blockweise verglichen werden, siehe {@link #sharesChunk(ChunkedIntArray, int)}.
+ */
+public class ChunkedIntArray {
+
+    public static final int CHUNK_SHIFT = 6;
+    public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final int length;
+    private final int[][] chunks;
+
+    // Chunks that are not shared with any other array and may be written directly
+    private final boolean[] exclusive;
+
+    /**
+     * Erzeugt ein neues Array, alle Werte sind 0
+     * @param length die Länge des Arrays
+     */
+    public ChunkedIntArray(int length) {
+        this.length = length;
+        this.chunks = new int[(length + CHUNK_MASK) >> CHUNK_SHIFT][];
+        this.exclusive = new boolean[chunks.length];
+        for (int c = 0; c < chunks.length; c++) {
+            chunks[c] = new int[Math.min(CHUNK_SIZE, length - (c << CHUNK_SHIFT))];
+            exclusive[c] = true;
+        }
+    }
+
+    private ChunkedIntArray(ChunkedIntArray source) {
+        this.length = source.length;
+        this.chunks = source.chunks.clone();
+        this.exclusive = new boolean[chunks.length];
+    }
+
+    /**
+     * Erzeugt eine Kopie, die sich alle Blöcke mit diesem Array teilt.
+     * Änderungen an einem der beiden Arrays sind im anderen nicht sichtbar.
+     * @return die Kopie
+     */
+    public ChunkedIntArray snapshot() {
+        Arrays.fill(exclusive, false);
+        return new ChunkedIntArray(this);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public int get(int index) {
+        return chunks[index >> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    public void set(int index, int value) {
+        int c = index >> CHUNK_SHIFT;
+        if (chunks[c][index & CHUNK_MASK] == value)
+            return;
+
+        if (!exclusive[c]) {
+            chunks[c] = chunks[c].clone();
+            exclusive[c] = true;
+        }
+
+        chunks[c][index & CHUNK_MASK] = value;
+    }
+
+    /**
+     * Gibt die Anzahl der Blöcke zurück
+     * @return die Anzahl der Blöcke
+     */
+    public int getChunkCount() {
+        return chunks.length;
+    }
+
+    /**
+     * Prüft, ob sich beide Arrays den angegebenen Block teilen. In diesem Fall sind die Werte des Blocks gleich.
+     * @param other das andere Array
+     * @param chunk der Index des Blocks
+     * @return true, wenn der Block geteilt wird
+     */
+    public boolean sharesChunk(ChunkedIntArray other, int chunk) {
+        return chunks[chunk] == other.chunks[chunk];
+    }
+}
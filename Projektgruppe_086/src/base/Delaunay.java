@@ -0,0 +1,663 @@
+package base;
+
+import java.util.Arrays;
+
+/**
+ * Diese Klasse berechnet die Delaunay-Triangulierung einer Punktmenge in O(n log n).
+ * Verwendet wird ein Sweep-Hull-Verfahren: Die Punkte werden nach ihrem Abstand zu einem
+ * Startdreieck sortiert und nacheinander an die konvexe Hülle angefügt. Anschließend werden
+ * ungültige Kanten so lange gekippt, bis die Delaunay-Bedingung wieder erfüllt ist.
+ * <p>
+ * Die Dreiecke werden als Halbkanten gespeichert: Die Halbkante e gehört zum Dreieck e / 3 und
+ * beginnt im Punkt {@code triangles[e]}, {@code halfedges[e]} ist die gegenüberliegende Halbkante
+ * im Nachbardreieck oder -1, falls e auf der konvexen Hülle liegt.
+ * Jede ungerichtete Kante der Triangulierung ist über {@link #getEdgeCount()} abrufbar.
+ * <p>
+ * Die Triangulierung ist eine Portierung von Delaunator (https://github.com/mapbox/delaunator),
+ * das unter der folgenden Lizenz steht:
+ * <pre>
+ * ISC License
+ *
+ * Copyright (c) 2021, Mapbox
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any purpose
+ * with or without fee is hereby granted, provided that the above copyright notice
+ * and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES WITH
+ * REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY SPECIAL, DIRECT,
+ * INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES WHATSOEVER RESULTING FROM LOSS
+ * OF USE, DATA OR PROFITS, WHETHER IN AN ACTION OF CONTRACT, NEGLIGENCE OR OTHER
+ * TORTIOUS ACTION, ARISING OUT OF OR IN CONNECTION WITH THE USE OR PERFORMANCE OF
+ * THIS SOFTWARE.
+ * </pre>
+ * Die Kanten des Gabriel-Graphen und des Relative Neighbourhood Graph sind nicht Teil von Delaunator.
+ */
+public class Delaunay {
+
+    private static final double EPSILON = Math.pow(2, -52);
+
+    private final double[] xs, ys;
+    private int[] triangles;
+    private int[] halfedges;
+    private int trianglesLength;
+
+    // Konvexe Hülle während der Berechnung
+    private int[] hullPrev, hullNext, hullTri, hullHash;
+    private int hullStart;
+    private double centerX, centerY;
+    private int[] edgeStack = new int[512];
+
+    // Ungerichtete Kanten: edgeA[k] - edgeB[k], edgeHalf[k] ist eine zugehörige Halbkante oder -1
+    private int[] edgeA, edgeB, edgeHalf;
+
+    // Zwischenspeicher für die Suche nach Punkten in der Linse einer Kante
+    private int[] visited;
+    private int visitStamp;
+    private int[] triangleStack = new int[64];
+
+    /**
+     * Berechnet die Delaunay-Triangulierung der gegebenen Punkte
+     * @param xs die x-Koordinaten der Punkte
+     * @param ys die y-Koordinaten der Punkte
+     */
+    public Delaunay(double[] xs, double[] ys) {
+        if (xs.length != ys.length)
+            throw new IllegalArgumentException("Ungültige Koordinaten");
+
+        this.xs = xs;
+        this.ys = ys;
+        triangulate();
+        collectEdges();
+    }
+
+    private void triangulate() {
+        int n = xs.length;
+        int maxTriangles = Math.max(2 * n - 5, 0);
+        triangles = new int[maxTriangles * 3];
+        halfedges = new int[maxTriangles * 3];
+        trianglesLength = 0;
+
+        if (n < 3)
+            return;
+
+        int hashSize = (int) Math.ceil(Math.sqrt(n));
+        hullPrev = new int[n];
+        hullNext = new int[n];
+        hullTri = new int[n];
+        hullHash = new int[hashSize];
+        Arrays.fill(hullHash, -1);
+
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            minX = Math.min(minX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxX = Math.max(maxX, xs[i]);
+            maxY = Math.max(maxY, ys[i]);
+            ids[i] = i;
+        }
+
+        double cx = (minX + maxX) / 2;
+        double cy = (minY + maxY) / 2;
+
+        // Seed triangle: point closest to the center, its closest neighbour and
+        // the point forming the smallest circumcircle with both
+        int i0 = 0, i1 = 0, i2 = 0;
+        double minDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            double d = distanceSquared(cx, cy, xs[i], ys[i]);
+            if (d < minDistance) {
+                i0 = i;
+                minDistance = d;
+            }
+        }
+
+        minDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            if (i == i0)
+                continue;
+
+            double d = distanceSquared(xs[i0], ys[i0], xs[i], ys[i]);
+            if (d < minDistance && d > 0) {
+                i1 = i;
+                minDistance = d;
+            }
+        }
+
+        double minRadius = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            if (i == i0 || i == i1)
+                continue;
+
+            double r = circumradius(xs[i0], ys[i0], xs[i1], ys[i1], xs[i], ys[i]);
+            if (r < minRadius) {
+                i2 = i;
+                minRadius = r;
+            }
+        }
+
+        // All points are collinear, there is no triangle
+        if (minRadius == Double.POSITIVE_INFINITY)
+            return;
+
+        if (orient(xs[i0], ys[i0], xs[i1], ys[i1], xs[i2], ys[i2])) {
+            int tmp = i1;
+            i1 = i2;
+            i2 = tmp;
+        }
+
+        centerX = circumcenterX(xs[i0], ys[i0], xs[i1], ys[i1], xs[i2], ys[i2]);
+        centerY = circumcenterY(xs[i0], ys[i0], xs[i1], ys[i1], xs[i2], ys[i2]);
+
+        double[] distances = new double[n];
+        for (int i = 0; i < n; i++)
+            distances[i] = distanceSquared(xs[i], ys[i], centerX, centerY);
+
+        quicksort(ids, distances, 0, n - 1);
+
+        hullStart = i0;
+        hullNext[i0] = hullPrev[i2] = i1;
+        hullNext[i1] = hullPrev[i0] = i2;
+        hullNext[i2] = hullPrev[i1] = i0;
+        hullTri[i0] = 0;
+        hullTri[i1] = 1;
+        hullTri[i2] = 2;
+
+        hullHash[hashKey(xs[i0], ys[i0], hashSize)] = i0;
+        hullHash[hashKey(xs[i1], ys[i1], hashSize)] = i1;
+        hullHash[hashKey(xs[i2], ys[i2], hashSize)] = i2;
+
+        addTriangle(i0, i1, i2, -1, -1, -1);
+
+        double xp = 0, yp = 0;
+        for (int k = 0; k < n; k++) {
+            int i = ids[k];
+            double x = xs[i];
+            double y = ys[i];
+
+            // Skip near-duplicate points
+            if (k > 0 && Math.abs(x - xp) <= EPSILON && Math.abs(y - yp) <= EPSILON)
+                continue;
+
+            xp = x;
+            yp = y;
+
+            if (i == i0 || i == i1 || i == i2)
+                continue;
+
+            // Find a visible edge on the convex hull using the edge hash
+            int start = 0;
+            int key = hashKey(x, y, hashSize);
+            for (int j = 0; j < hashSize; j++) {
+                start = hullHash[(key + j) % hashSize];
+                if (start != -1 && start != hullNext[start])
+                    break;
+            }
+
+            start = hullPrev[start];
+            int e = start;
+            int q;
+            while (!orient(x, y, xs[e], ys[e], xs[q = hullNext[e]], ys[q])) {
+                e = q;
+                if (e == start) {
+                    e = -1;
+                    break;
+                }
+            }
+
+            // Likely a near-duplicate point, skip it
+            if (e == -1)
+                continue;
+
+            // Add the first triangle from the point
+            int t = addTriangle(e, i, hullNext[e], -1, -1, hullTri[e]);
+            hullTri[i] = legalize(t + 2);
+            hullTri[e] = t;
+
+            // Walk forward through the hull, adding more triangles and flipping recursively
+            int next = hullNext[e];
+            while (orient(x, y, xs[next], ys[next], xs[q = hullNext[next]], ys[q])) {
+                t = addTriangle(next, i, q, hullTri[i], -1, hullTri[next]);
+                hullTri[i] = legalize(t + 2);
+                hullNext[next] = next; // mark as removed
+                next = q;
+            }
+
+            // Walk backward from the other side, adding more triangles and flipping
+            if (e == start) {
+                while (orient(x, y, xs[q = hullPrev[e]], ys[q], xs[e], ys[e])) {
+                    t = addTriangle(q, i, e, -1, hullTri[e], hullTri[q]);
+                    legalize(t + 2);
+                    hullTri[q] = t;
+                    hullNext[e] = e; // mark as removed
+                    e = q;
+                }
+            }
+
+            // Update the hull indices
+            hullStart = hullPrev[i] = e;
+            hullNext[e] = hullPrev[next] = i;
+            hullNext[i] = next;
+
+            hullHash[hashKey(x, y, hashSize)] = i;
+            hullHash[hashKey(xs[e], ys[e], hashSize)] = e;
+        }
+
+        triangles = Arrays.copyOf(triangles, trianglesLength);
+        halfedges = Arrays.copyOf(halfedges, trianglesLength);
+
+        // Not needed anymore
+        hullPrev = hullNext = hullTri = hullHash = null;
+        edgeStack = null;
+    }
+
+    private int legalize(int a) {
+        int i = 0;
+        int ar;
+
+        // Recursion eliminated with a fixed-size stack
+        while (true) {
+            int b = halfedges[a];
+
+            int a0 = a - a % 3;
+            ar = a0 + (a + 2) % 3;
+
+            // Convex hull edge
+            if (b == -1) {
+                if (i == 0)
+                    break;
+
+                a = edgeStack[--i];
+                continue;
+            }
+
+            int b0 = b - b % 3;
+            int al = a0 + (a + 1) % 3;
+            int bl = b0 + (b + 2) % 3;
+
+            int p0 = triangles[ar];
+            int pr = triangles[a];
+            int pl = triangles[al];
+            int p1 = triangles[bl];
+
+            boolean illegal = inCircle(xs[p0], ys[p0], xs[pr], ys[pr], xs[pl], ys[pl], xs[p1], ys[p1]);
+
+            if (illegal) {
+                triangles[a] = p1;
+                triangles[b] = p0;
+
+                int hbl = halfedges[bl];
+
+                // The flipped edge is on the hull, fix the reference in the hull
+                if (hbl == -1) {
+                    int e = hullStart;
+                    do {
+                        if (hullTri[e] == bl) {
+                            hullTri[e] = a;
+                            break;
+                        }
+                        e = hullPrev[e];
+                    } while (e != hullStart);
+                }
+
+                link(a, hbl);
+                link(b, halfedges[ar]);
+                link(ar, bl);
+
+                int br = b0 + (b + 1) % 3;
+                if (i == edgeStack.length)
+                    edgeStack = Arrays.copyOf(edgeStack, i * 2);
+                edgeStack[i++] = br;
+            } else {
+                if (i == 0)
+                    break;
+
+                a = edgeStack[--i];
+            }
+        }
+
+        return ar;
+    }
+
+    private void link(int a, int b) {
+        halfedges[a] = b;
+        if (b != -1)
+            halfedges[b] = a;
+    }
+
+    private int addTriangle(int i0, int i1, int i2, int a, int b, int c) {
+        int t = trianglesLength;
+
+        triangles[t] = i0;
+        triangles[t + 1] = i1;
+        triangles[t + 2] = i2;
+
+        link(t, a);
+        link(t + 1, b);
+        link(t + 2, c);
+
+        trianglesLength += 3;
+        return t;
+    }
+
+    private void collectEdges() {
+        int n = xs.length;
+
+        if (triangles.length == 0) {
+            // No triangles (fewer than 3 points or all collinear): connect the points in order along the line
+            int[] ids = new int[n];
+            double[] projection = new double[n];
+            double dx = n > 0 ? xs[n - 1] - xs[0] : 0;
+            double dy = n > 0 ? ys[n - 1] - ys[0] : 0;
+            for (int i = 0; i < n; i++) {
+                ids[i] = i;
+                projection[i] = xs[i] * dx + ys[i] * dy;
+            }
+
+            if (n > 1)
+                quicksort(ids, projection, 0, n - 1);
+
+            int count = Math.max(0, n - 1);
+            edgeA = new int[count];
+            edgeB = new int[count];
+            edgeHalf = new int[count];
+            for (int k = 0; k < count; k++) {
+                edgeA[k] = ids[k];
+                edgeB[k] = ids[k + 1];
+                edgeHalf[k] = -1;
+            }
+            return;
+        }
+
+        int count = 0;
+        for (int e = 0; e < triangles.length; e++) {
+            if (e > halfedges[e])
+                count++;
+        }
+
+        edgeA = new int[count];
+        edgeB = new int[count];
+        edgeHalf = new int[count];
+        int k = 0;
+        for (int e = 0; e < triangles.length; e++) {
+            if (e > halfedges[e]) {
+                edgeA[k] = triangles[e];
+                edgeB[k] = triangles[nextHalfedge(e)];
+                edgeHalf[k] = e;
+                k++;
+            }
+        }
+    }
+
+    private static int nextHalfedge(int e) {
+        return e % 3 == 2 ? e - 2 : e + 1;
+    }
+
+    private static int previousHalfedge(int e) {
+        return e % 3 == 0 ? e + 2 : e - 1;
+    }
+
+    /**
+     * Gibt die Anzahl der ungerichteten Kanten der Triangulierung zurück
+     * @return die Anzahl der Kanten
+     */
+    public int getEdgeCount() {
+        return edgeA.length;
+    }
+
+    /**
+     * Gibt den Startpunkt einer Kante zurück
+     * @param edge der Index der Kante
+     * @return der Index des Startpunkts
+     */
+    public int getEdgeStart(int edge) {
+        return edgeA[edge];
+    }
+
+    /**
+     * Gibt den Endpunkt einer Kante zurück
+     * @param edge der Index der Kante
+     * @return der Index des Endpunkts
+     */
+    public int getEdgeEnd(int edge) {
+        return edgeB[edge];
+    }
+
+    /**
+     * Gibt die Länge einer Kante zurück
+     * @param edge der Index der Kante
+     * @return die euklidische Länge der Kante
+     */
+    public double getEdgeLength(int edge) {
+        return Math.sqrt(distanceSquared(xs[edgeA[edge]], ys[edgeA[edge]], xs[edgeB[edge]], ys[edgeB[edge]]));
+    }
+
+    /**
+     * Überprüft, ob die Kante zum Gabriel-Graphen gehört, also ob der Kreis mit der Kante als Durchmesser
+     * keinen weiteren Punkt enthält. Für Delaunay-Kanten genügt es, die beiden gegenüberliegenden
+     * Punkte der angrenzenden Dreiecke zu prüfen.
+     * @param edge der Index der Kante
+     * @return true, wenn die Kante zum Gabriel-Graphen gehört
+     */
+    public boolean isGabrielEdge(int edge) {
+        int e = edgeHalf[edge];
+        if (e == -1)
+            return true;
+
+        int a = edgeA[edge];
+        int b = edgeB[edge];
+        if (insideDiametralCircle(a, b, triangles[previousHalfedge(e)]))
+            return false;
+
+        int twin = halfedges[e];
+        return twin == -1 || !insideDiametralCircle(a, b, triangles[previousHalfedge(twin)]);
+    }
+
+    private boolean insideDiametralCircle(int a, int b, int p) {
+        return (xs[a] - xs[p]) * (xs[b] - xs[p]) + (ys[a] - ys[p]) * (ys[b] - ys[p]) < 0;
+    }
+
+    /**
+     * Überprüft, ob die Kante zum Relative Neighbourhood Graph gehört. Eine Kante (a, b) wird entfernt,
+     * sobald es einen Punkt gibt, der sowohl zu a als auch zu b näher liegt als a und b zueinander,
+     * also in der Linse (Schnitt der Kreise um a und b mit Radius |ab|) liegt.
+     * Da die Linse konvex ist, genügt es, ausgehend von der Kante alle Dreiecke abzulaufen,
+     * deren Kanten den Umkreis der Linse schneiden.
+     * @param edge der Index der Kante
+     * @return true, wenn die Kante zum Relative Neighbourhood Graph gehört
+     */
+    public boolean isRelativeNeighbourEdge(int edge) {
+        int e = edgeHalf[edge];
+        if (e == -1)
+            return true;
+
+        if (visited == null)
+            visited = new int[triangles.length / 3];
+
+        int a = edgeA[edge];
+        int b = edgeB[edge];
+        double length = distanceSquared(xs[a], ys[a], xs[b], ys[b]);
+
+        // The lune is contained in this circle around the center of the edge
+        double mx = (xs[a] + xs[b]) / 2;
+        double my = (ys[a] + ys[b]) / 2;
+        double radiusSquared = 0.75 * length;
+
+        visitStamp++;
+        int stackSize = 0;
+        triangleStack[stackSize++] = e / 3;
+        visited[e / 3] = visitStamp;
+        if (halfedges[e] != -1) {
+            triangleStack[stackSize++] = halfedges[e] / 3;
+            visited[halfedges[e] / 3] = visitStamp;
+        }
+
+        while (stackSize > 0) {
+            int t = triangleStack[--stackSize];
+            for (int h = 3 * t; h < 3 * t + 3; h++) {
+                int p = triangles[h];
+                if (p != a && p != b) {
+                    double da = distanceSquared(xs[a], ys[a], xs[p], ys[p]);
+                    double db = distanceSquared(xs[b], ys[b], xs[p], ys[p]);
+                    if (Math.max(da, db) < length)
+                        return false;
+                }
+
+                int twin = halfedges[h];
+                if (twin == -1 || visited[twin / 3] == visitStamp)
+                    continue;
+
+                int q = triangles[nextHalfedge(h)];
+                if (segmentDistanceSquared(mx, my, xs[p], ys[p], xs[q], ys[q]) <= radiusSquared) {
+                    if (stackSize == triangleStack.length)
+                        triangleStack = Arrays.copyOf(triangleStack, stackSize * 2);
+
+                    visited[twin / 3] = visitStamp;
+                    triangleStack[stackSize++] = twin / 3;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private static double segmentDistanceSquared(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        return distanceSquared(px, py, ax + t * dx, ay + t * dy);
+    }
+
+    private int hashKey(double x, double y, int hashSize) {
+        return (int) Math.floor(pseudoAngle(x - centerX, y - centerY) * hashSize) % hashSize;
+    }
+
+    // Monotonically increases with the real angle, but doesn't need expensive trigonometry
+    private static double pseudoAngle(double dx, double dy) {
+        double p = dx / (Math.abs(dx) + Math.abs(dy));
+        return (dy > 0 ? 3 - p : 1 + p) / 4;
+    }
+
+    private static double distanceSquared(double ax, double ay, double bx, double by) {
+        double dx = ax - bx;
+        double dy = ay - by;
+        return dx * dx + dy * dy;
+    }
+
+    private static boolean orient(double px, double py, double qx, double qy, double rx, double ry) {
+        return (qy - py) * (rx - qx) - (qx - px) * (ry - qy) < 0;
+    }
+
+    private static boolean inCircle(double ax, double ay, double bx, double by, double cx, double cy, double px, double py) {
+        double dx = ax - px;
+        double dy = ay - py;
+        double ex = bx - px;
+        double ey = by - py;
+        double fx = cx - px;
+        double fy = cy - py;
+
+        double ap = dx * dx + dy * dy;
+        double bp = ex * ex + ey * ey;
+        double cp = fx * fx + fy * fy;
+
+        return dx * (ey * cp - bp * fy) - dy * (ex * cp - bp * fx) + ap * (ex * fy - ey * fx) < 0;
+    }
+
+    private static double circumradius(double ax, double ay, double bx, double by, double cx, double cy) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double ex = cx - ax;
+        double ey = cy - ay;
+
+        double bl = dx * dx + dy * dy;
+        double cl = ex * ex + ey * ey;
+        double d = 0.5 / (dx * ey - dy * ex);
+
+        double x = (ey * bl - dy * cl) * d;
+        double y = (dx * cl - ex * bl) * d;
+
+        double r = x * x + y * y;
+        return Double.isNaN(r) ? Double.POSITIVE_INFINITY : r;
+    }
+
+    private static double circumcenterX(double ax, double ay, double bx, double by, double cx, double cy) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double ex = cx - ax;
+        double ey = cy - ay;
+
+        double bl = dx * dx + dy * dy;
+        double cl = ex * ex + ey * ey;
+        double d = 0.5 / (dx * ey - dy * ex);
+        return ax + (ey * bl - dy * cl) * d;
+    }
+
+    private static double circumcenterY(double ax, double ay, double bx, double by, double cx, double cy) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double ex = cx - ax;
+        double ey = cy - ay;
+
+        double bl = dx * dx + dy * dy;
+        double cl = ex * ex + ey * ey;
+        double d = 0.5 / (dx * ey - dy * ex);
+        return ay + (dx * cl - ex * bl) * d;
+    }
+
+    // Sorts the ids by their value, without boxing
+    private static void quicksort(int[] ids, double[] values, int left, int right) {
+        if (right - left <= 20) {
+            for (int i = left + 1; i <= right; i++) {
+                int temp = ids[i];
+                double tempValue = values[temp];
+                int j = i - 1;
+                while (j >= left && values[ids[j]] > tempValue)
+                    ids[j + 1] = ids[j--];
+                ids[j + 1] = temp;
+            }
+        } else {
+            int median = (left + right) >> 1;
+            int i = left + 1;
+            int j = right;
+            swap(ids, median, i);
+            if (values[ids[left]] > values[ids[right]])
+                swap(ids, left, right);
+            if (values[ids[i]] > values[ids[right]])
+                swap(ids, i, right);
+            if (values[ids[left]] > values[ids[i]])
+                swap(ids, left, i);
+
+            int temp = ids[i];
+            double tempValue = values[temp];
+            while (true) {
+                do i++; while (values[ids[i]] < tempValue);
+                do j--; while (values[ids[j]] > tempValue);
+                if (j < i)
+                    break;
+                swap(ids, i, j);
+            }
+
+            ids[left + 1] = ids[j];
+            ids[j] = temp;
+
+            if (right - i + 1 >= j - left) {
+                quicksort(ids, values, i, right);
+                quicksort(ids, values, left, j - 1);
+            } else {
+                quicksort(ids, values, left, j - 1);
+                quicksort(ids, values, i, right);
+            }
+        }
+    }
+
+    private static void swap(int[] array, int i, int j) {
+        int tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
+    }
+}
@@ -0,0 +1,195 @@
+package base;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Fractal Brownian motion: sums several octaves of {@link PerlinNoise}, each octave has a higher frequency
+ * (lacunarity) and a lower amplitude (gain) than the previous one.
+ * <p>
+ * The octaves are independent, tiles are computed concurrently into one primitive buffer per octave.
+ * All octaves use hashed gradients ({@link PerlinNoise#createHashed(int, int, int, long)}), so their memory does not
+ * depend on the map size. The gradient tables of the low-frequency octaves are cached and reused for maps of any
+ * size generated from the same seed. The cache evicts the least recently used tables, so generating many maps in a
+ * row does not flush the tables of the map currently in use.
+ */
+public class FractalNoise {
+
+    // Number of low-frequency octaves whose gradient tables are cached
+    private static final int CACHED_OCTAVES = 2;
+    private static final int MAX_CACHE_SIZE = 32;
+
+    // Tiles with fewer pixels are computed on the calling thread
+    private static final int PARALLEL_THRESHOLD = 64 * 64;
+
+    private static final Map<String, PerlinNoise> CACHE = Collections.synchronizedMap(
+            new LinkedHashMap<String, PerlinNoise>(MAX_CACHE_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PerlinNoise> eldest) {
+                    return size() > MAX_CACHE_SIZE;
+                }
+            });
+
+    // Buffer for one octave of a row, rows are requested from several threads
+    private static final ThreadLocal<double[]> ROW_BUFFER = ThreadLocal.withInitial(() -> new double[0]);
+
+    private final int width, height;
+    private final PerlinNoise[] octaves;
+    private final double[] weights;
+
+    /**
+     * Creates a new fractal noise generator
+     * @param width: width in grid cells of the first octave
+     * @param height: height in grid cells of the first octave
+     * @param scale: size of a grid cell of the first octave in pixels
+     * @param octaves: number of octaves, octaves with cells smaller than two pixels are skipped
+     * @param lacunarity: frequency factor between two octaves
+     * @param gain: amplitude factor between two octaves
+     * @param seed: seed of the gradients, the same seed always results in the same noise
+     */
+    public FractalNoise(int width, int height, int scale, int octaves, double lacunarity, double gain, long seed) {
+        if (octaves < 1 || lacunarity <= 1.0 || gain <= 0.0)
+            throw new IllegalArgumentException();
+
+        this.width = width * scale;
+        this.height = height * scale;
+
+        // Cells smaller than 2 pixels would only contribute lattice points, where the noise is always 0.5
+        int count = 1;
+        while (count < octaves && Math.round(scale / Math.pow(lacunarity, count)) >= 2)
+            count++;
+
+        this.octaves = new PerlinNoise[count];
+        this.weights = new double[count];
+
+        SplittableRandom random = new SplittableRandom(seed);
+        double amplitude = 1.0;
+        double sumOfSquares = 0.0;
+        for (int i = 0; i < count; i++) {
+            long octaveSeed = random.split().nextLong();
+            int octaveScale = (int) Math.round(scale / Math.pow(lacunarity, i));
+            int octaveWidth = (this.width + octaveScale - 1) / octaveScale;
+            int octaveHeight = (this.height + octaveScale - 1) / octaveScale;
+
+            this.octaves[i] = i < CACHED_OCTAVES
+                    ? getCachedOctave(octaveWidth, octaveHeight, octaveScale, octaveSeed)
+                    : PerlinNoise.createHashed(octaveWidth, octaveHeight, octaveScale, octaveSeed);
+
+            this.weights[i] = amplitude;
+            sumOfSquares += amplitude * amplitude;
+            amplitude *= gain;
+        }
+
+        // Keep the variance of a single octave, so that the terrain thresholds still fit
+        for (int i = 0; i < count; i++)
+            this.weights[i] /= Math.sqrt(sumOfSquares);
+    }
+
+    // Hashed gradients do not depend on the size, so the cached tables fit every size
+    private static PerlinNoise getCachedOctave(int width, int height, int scale, long seed) {
+        PerlinNoise noise = CACHE.computeIfAbsent(scale + "@" + seed,
+                key -> PerlinNoise.createHashed(width, height, scale, seed));
+        return noise.resize(width, height);
+    }
+
+    public int getOctaves() {
+        return octaves.length;
+    }
+
+    /**
+     * Creates the noise value for the given pixel (x,y)
+     * @param x: x-coordinate of point
+     * @param y: y-coordinate of point
+     * @return noise of point
+     */
+    public double getNoise(int x, int y) {
+        if (octaves.length == 1)
+            return octaves[0].getNoise(x, y);
+
+        double value = 0.5;
+        for (int i = 0; i < octaves.length; i++)
+            value += weights[i] * (octaves[i].getNoise(x, y) - 0.5);
+
+        return value;
+    }
+
+    /**
+     * Creates the noise values for a horizontal line of pixels, see {@link PerlinNoise#getNoiseRow(int, int, int, double[], int)}
+     * @param x: x-coordinate of the first point
+     * @param y: y-coordinate of the line
+     * @param length: number of points
+     * @param target: array for the noise values
+     * @param offset: index in target for the first point
+     */
+    public void getNoiseRow(int x, int y, int length, double[] target, int offset) {
+        if (x < 0 || y < 0 || x + length > width || y >= height)
+            throw new IllegalArgumentException("x or/and y is not in picture");
+
+        octaves[0].getNoiseRow(x, y, length, target, offset);
+        if (octaves.length == 1)
+            return;
+
+        double[] octave = ROW_BUFFER.get();
+        if (octave.length < length) {
+            octave = new double[length];
+            ROW_BUFFER.set(octave);
+        }
+
+        combine(target, offset, length, 0, null);
+        for (int i = 1; i < octaves.length; i++) {
+            octaves[i].getNoiseRow(x, y, length, octave, 0);
+            combine(target, offset, length, i, octave);
+        }
+    }
+
+    /**
+     * Creates the noise values for a rectangular area. The octaves of larger areas are computed concurrently.
+     * @param x: x-coordinate of the upper left point
+     * @param y: y-coordinate of the upper left point
+     * @param w: width of the area
+     * @param h: height of the area
+     * @param target: array for the noise values, at least w*h entries
+     */
+    public void getNoiseTile(int x, int y, int w, int h, double[] target) {
+        if (x < 0 || y < 0 || x + w > width || y + h > height)
+            throw new IllegalArgumentException("x or/and y is not in picture");
+
+        if (octaves.length == 1) {
+            octaves[0].getNoiseTile(x, y, w, h, target);
+            return;
+        }
+
+        // One buffer per octave, the first octave is written to the target directly
+        double[][] buffers = new double[octaves.length][];
+        buffers[0] = target;
+        IntStream range = IntStream.range(0, octaves.length);
+        if (w * h >= PARALLEL_THRESHOLD)
+            range = range.parallel();
+
+        range.forEach(i -> {
+            if (buffers[i] == null)
+                buffers[i] = new double[w * h];
+
+            octaves[i].getNoiseTile(x, y, w, h, buffers[i]);
+        });
+
+        combine(target, 0, w * h, 0, null);
+        for (int i = 1; i < octaves.length; i++)
+            combine(target, 0, w * h, i, buffers[i]);
+    }
+
+    // Adds the weighted octave to the target, the first octave (source == null) is weighted in place
+    private void combine(double[] target, int offset, int length, int octave, double[] source) {
+        double weight = weights[octave];
+        if (source == null) {
+            for (int i = 0; i < length; i++)
+                target[offset + i] = 0.5 + weight * (target[offset + i] - 0.5);
+        } else {
+            for (int i = 0; i < length; i++)
+                target[offset + i] += weight * (source[i] - 0.5);
+        }
+    }
+}
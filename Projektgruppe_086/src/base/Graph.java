@@ -1,11 +1,18 @@
 package base;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
-import java.util.function.Predicate;
 import java.util.stream.Collector;
+import java.util.stream.Collectors;
 
 import game.map.Castle;
 
@@ -21,12 +28,18 @@ public class Graph<T> {
 	private List<Edge<T>> edges;
 	private List<Node<T>> nodes;
 
+	// Indices for constant time lookups, kept up to date by addNode and addNewEdge
+	private Map<Node<T>, List<Edge<T>>> adjacency;
+	private Map<T, Node<T>> nodesByValue;
+
 	/**
 	 * Konstruktor für einen neuen, leeren Graphen
 	 */
 	public Graph() {
 		this.nodes = new ArrayList<>();
 		this.edges = new LinkedList<>();
+		this.adjacency = new HashMap<>();
+		this.nodesByValue = new HashMap<>();
 	}
 
 	/**
@@ -38,6 +51,8 @@ public class Graph<T> {
 	public Node<T> addNode(T value) {
 		Node<T> node = new Node<>(value);
 		this.nodes.add(node);
+		this.adjacency.put(node, new ArrayList<>());
+		this.nodesByValue.putIfAbsent(value, node);
 		return node;
 	}
 
@@ -56,8 +71,26 @@ public class Graph<T> {
 			return edge;
 		}
 
-		edge = new Edge<>(nodeA, nodeB);
+		return addNewEdge(nodeA, nodeB);
+	}
+
+	/**
+	 * Eine neue Kante zwischen zwei Knoten hinzufügen, ohne vorher nach einer
+	 * vorhandenen Kante zu suchen. Der Aufrufer muss sicherstellen, dass zwischen
+	 * beiden Knoten noch keine Kante existiert.
+	 * 
+	 * @param nodeA Der erste Knoten
+	 * @param nodeB Der zweite Knoten
+	 * @return Die erstellte Kante
+	 * @see #addEdge(Node, Node)
+	 */
+	public Edge<T> addNewEdge(Node<T> nodeA, Node<T> nodeB) {
+		Edge<T> edge = new Edge<>(nodeA, nodeB);
 		this.edges.add(edge);
+		this.adjacency.computeIfAbsent(nodeA, n -> new ArrayList<>()).add(edge);
+		if (nodeB != nodeA)
+			this.adjacency.computeIfAbsent(nodeB, n -> new ArrayList<>()).add(edge);
+
 		return edge;
 	}
 
@@ -87,35 +120,37 @@ public class Graph<T> {
 	 * @see java.util.stream.Stream#collect(Collector)
 	 * @return Eine Liste aller Knotenwerte
 	 */
-	@SuppressWarnings("unchecked")
 	public List<T> getAllValues() {
-		return (List<T>) nodes.stream().map(n -> n.getValue());
+		return nodes.stream().map(Node::getValue).collect(Collectors.toList());
 	}
 
 	/**
-	 * Diese Methode gibt alle Kanten eines Knotens als Liste mittels Streams
-	 * zurück.
+	 * Diese Methode gibt alle Kanten eines Knotens als Liste zurück. Die Kanten
+	 * werden beim Hinzufügen pro Knoten gespeichert, sodass nicht alle Kanten
+	 * durchsucht werden müssen.
 	 * 
 	 * @param node Der Knoten für die dazugehörigen Kanten
-	 * @see java.util.stream.Stream#filter(Predicate)
-	 * @see java.util.stream.Stream#collect(Collector)
-	 * @return Die Liste aller zum Knoten zugehörigen Kanten
+	 * @return Die unveränderliche Liste aller zum Knoten zugehörigen Kanten
 	 */
 	public List<Edge<T>> getEdges(Node<T> node) {
-		// TODO: Graph<T>#getEdges(Node<T>)
-	//	return edges.stream().filter();
-		return null;
+		return Collections.unmodifiableList(adjacency.getOrDefault(node, Collections.emptyList()));
 	}
 
 	/**
 	 * Diese Methode sucht eine Kante zwischen beiden angegebenen Knoten und gibt
-	 * diese zurück oder null, falls diese Kante nicht existiert
+	 * diese zurück oder null, falls diese Kante nicht existiert. Dabei werden nur
+	 * die Kanten des ersten Knotens durchsucht.
 	 * 
 	 * @param nodeA Der erste Knoten
 	 * @param nodeB Der zweite Knoten
 	 * @return Die Kante zwischen beiden Knoten oder null
 	 */
 	public Edge<T> getEdge(Node<T> nodeA, Node<T> nodeB) {
+		for (Edge<T> edge : adjacency.getOrDefault(nodeA, Collections.emptyList())) {
+			if (edge.getOtherNode(nodeA) == nodeB)
+				return edge;
+		}
+
 		return null;
 	}
 
@@ -127,8 +162,7 @@ public class Graph<T> {
 	 * @return Ein Knoten mit dem angegebenen Wert oder null
 	 */
 	public Node<T> getNode(T value) {
-		// TODO: Graph<T>#getNode(T)
-		return null;
+		return nodesByValue.get(value);
 	}
 
 	/**
@@ -137,7 +171,23 @@ public class Graph<T> {
 	 * @return true, wenn alle Knoten erreichbar sind
 	 */
 	public boolean allNodesConnected() {
-		// TODO: Graph<T>#allNodesConnected()
-		return false;
+		if (nodes.isEmpty())
+			return true;
+
+		// Breadth-first search starting at the first node
+		Set<Node<T>> visited = new HashSet<>();
+		Deque<Node<T>> queue = new ArrayDeque<>();
+		visited.add(nodes.get(0));
+		queue.add(nodes.get(0));
+		while (!queue.isEmpty()) {
+			Node<T> node = queue.poll();
+			for (Edge<T> edge : getEdges(node)) {
+				Node<T> neighbour = edge.getOtherNode(node);
+				if (visited.add(neighbour))
+					queue.add(neighbour);
+			}
+		}
+
+		return visited.size() == nodes.size();
 	}
 }
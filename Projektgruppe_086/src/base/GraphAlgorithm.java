@@ -28,9 +28,13 @@ public abstract class GraphAlgorithm<T> {
     }
 
     private Graph<T> graph;
+    private Node<T> sourceNode;
 
-    // Diese Liste enthält alle Knoten, die noch nicht abgearbeitet wurden
-    private List<Node<T>> availableNodes;
+    // Diese Liste enthält alle erreichten Knoten, die noch nicht abgearbeitet wurden
+    private List<AlgorithmNode<T>> availableNodes;
+
+    // Alle bereits abgearbeiteten Knoten
+    private Set<Node<T>> processedNodes;
 
     // Diese Map enthält alle Zuordnungen
     private Map<Node<T>, AlgorithmNode<T>> algorithmNodes;
@@ -42,24 +46,43 @@ public abstract class GraphAlgorithm<T> {
      */
     public GraphAlgorithm(Graph<T> graph, Node<T> sourceNode) {
         this.graph = graph;
-        this.availableNodes = new LinkedList<>(graph.getNodes());
+        this.sourceNode = sourceNode;
+        this.availableNodes = new LinkedList<>();
+        this.processedNodes = new HashSet<>();
         this.algorithmNodes = new HashMap<>();
 
         for(Node<T> node : graph.getNodes())
             this.algorithmNodes.put(node, new AlgorithmNode<>(node, null, -1));
 
-        this.algorithmNodes.get(sourceNode).value = 0;
+        AlgorithmNode<T> source = this.algorithmNodes.get(sourceNode);
+        if(source != null) {
+            source.value = 0;
+            this.availableNodes.add(source);
+        }
     }
 
     /**
      * Diese Methode gibt einen Knoten mit dem kleinsten Wert, der noch nicht abgearbeitet wurde, zurück und entfernt ihn aus der Liste {@link #availableNodes}.
+     * Die Liste enthält nur Knoten, die bereits erreicht wurden, sodass nicht alle Knoten des Graphen durchsucht werden müssen.
      * Sollte kein Knoten gefunden werden, wird null zurückgegeben.
      * Verbindliche Anforderung: Verwenden Sie beim Durchlaufen der Liste Iteratoren
      * @return Der nächste abzuarbeitende Knoten oder null
      */
     private AlgorithmNode<T> getSmallestNode() {
-        // TODO: GraphAlgorithm<T>#getSmallestNode()
-        return null;
+        AlgorithmNode<T> smallest = null;
+        Iterator<AlgorithmNode<T>> iterator = availableNodes.iterator();
+        while(iterator.hasNext()) {
+            AlgorithmNode<T> algorithmNode = iterator.next();
+            if(smallest == null || algorithmNode.value < smallest.value)
+                smallest = algorithmNode;
+        }
+
+        if(smallest != null) {
+            availableNodes.remove(smallest);
+            processedNodes.add(smallest.node);
+        }
+
+        return smallest;
     }
 
     /**
@@ -70,6 +93,7 @@ public abstract class GraphAlgorithm<T> {
      * 2b. Berechne den Wert des Knotens, in dem du den aktuellen Wert des Knotens und den der Kante addierst
      * 2c. Ist der alte Wert nicht gesetzt (-1) oder ist der neue Wert kleiner, setze den neuen Wert und den Vorgängerknoten
      * 3. Wiederhole solange, bis alle Knoten abgearbeitet wurden
+     * Über Knoten, die nicht passierbar sind ({@link #isPassable(Node)}), führt kein Weg hinaus, sie können aber Ziel eines Weges sein.
 
      * Nützliche Methoden:
      * @see #getSmallestNode()
@@ -78,7 +102,29 @@ public abstract class GraphAlgorithm<T> {
      * @see Edge#getOtherNode(Node)
      */
     public void run() {
-        // TODO: GraphAlgorithm<T>#run()
+        AlgorithmNode<T> current;
+        while((current = getSmallestNode()) != null) {
+            if(current.node != sourceNode && !isPassable(current.node))
+                continue;
+
+            for(Edge<T> edge : graph.getEdges(current.node)) {
+                if(!isPassable(edge))
+                    continue;
+
+                AlgorithmNode<T> next = algorithmNodes.get(edge.getOtherNode(current.node));
+                if(processedNodes.contains(next.node))
+                    continue;
+
+                double value = current.value + getValue(edge);
+                if(next.value < 0)
+                    availableNodes.add(next);
+
+                if(next.value < 0 || value < next.value) {
+                    next.value = value;
+                    next.previous = current;
+                }
+            }
+        }
     }
 
     /**
@@ -89,8 +135,18 @@ public abstract class GraphAlgorithm<T> {
      * @return eine Liste von Kanten oder null
      */
     public List<Edge<T>> getPath(Node<T> destination) {
-        // TODO: GraphAlgorithm<T>#getPath(Node<T>)
-        return null;
+        AlgorithmNode<T> current = algorithmNodes.get(destination);
+        if(current == null || current.value < 0)
+            return null;
+
+        List<Edge<T>> path = new ArrayList<>();
+        while(current.previous != null) {
+            path.add(graph.getEdge(current.previous.node, current.node));
+            current = current.previous;
+        }
+
+        Collections.reverse(path);
+        return path;
     }
 
     /**
@@ -1,7 +1,6 @@
 package base;
 
 import java.awt.*;
-import java.util.ArrayList;
 import java.util.Random;
 
 /**
@@ -20,9 +19,43 @@ public class PerlinNoise {
     private int gheight; // scaled height
 
     private Random random;
-    private ArrayList<Vector<Double>> Vectors; //gradients
+
+    // gradients, the gradient of grid point (x,y) is stored at index x+y*(gwidth+1), see gradientIndex
+    private double[] gradientsX;
+    private double[] gradientsY;
+
+    // permutation table of the hashed mode (twice the same permutation), null if every grid point has its own gradient
+    private static final int PERMUTATION_SIZE = 256;
+    private int[] permutation;
+
+    // integer pixels only have scale different offsets inside a cell, see createTables
+    private double[] offsets;
+    private double[] offsetsRight;
+    private double[] fades;
+
+    // see setLaneKernel
+    private boolean laneKernel = true;
+
+    // One cell of results of the lane kernel, octaves are shared between threads, so every thread has its own
+    private static final ThreadLocal<double[]> LANES = ThreadLocal.withInitial(() -> new double[0]);
 
     public PerlinNoise(int width, int height, int scale) {
+        this(width, height, scale, new Random());
+    }
+
+    /**
+     * Creates a new noise generator whose gradients are drawn from the given random generator,
+     * the same seed always results in the same noise
+     * @param width: width in grid cells
+     * @param height: height in grid cells
+     * @param scale: size of a grid cell in pixels
+     * @param random: source of the gradients
+     */
+    public PerlinNoise(int width, int height, int scale, Random random) {
+        this(width, height, scale, random, false);
+    }
+
+    private PerlinNoise(int width, int height, int scale, Random random, boolean hashed) {
 
         this.width = width * scale;
         this.height = height * scale;
@@ -30,9 +63,61 @@ public class PerlinNoise {
         this.gwidth = width;
         this.gheight = height;
 
-        this.random = new Random();
-        this.Vectors = new ArrayList<>();
-        createVectors((1 + gwidth) * (1 + gheight));
+        this.random = random;
+        if (hashed) {
+            createVectors(PERMUTATION_SIZE);
+            createPermutation();
+        } else {
+            createVectors((1 + gwidth) * (1 + gheight));
+        }
+
+        createTables();
+    }
+
+    // Shares the gradients, permutation and tables of the source, see resize
+    private PerlinNoise(PerlinNoise source, int width, int height) {
+        this.width = width * source.scale;
+        this.height = height * source.scale;
+        this.scale = source.scale;
+        this.gwidth = width;
+        this.gheight = height;
+
+        this.random = source.random;
+        this.gradientsX = source.gradientsX;
+        this.gradientsY = source.gradientsY;
+        this.permutation = source.permutation;
+        this.offsets = source.offsets;
+        this.offsetsRight = source.offsetsRight;
+        this.fades = source.fades;
+        this.laneKernel = source.laneKernel;
+    }
+
+    /**
+     * Creates a new noise generator in hashed mode. Instead of one gradient per grid point, there is a fixed table of
+     * gradients and a permutation table, both drawn from the seed. The gradient of a grid point is chosen by hashing its
+     * coordinates with the permutation table, so the memory does not depend on the size of the noise.
+     * @param width: width in grid cells
+     * @param height: height in grid cells
+     * @param scale: size of a grid cell in pixels
+     * @param seed: seed of the gradients and the permutation
+     * @return the new noise generator
+     */
+    public static PerlinNoise createHashed(int width, int height, int scale, long seed) {
+        return new PerlinNoise(width, height, scale, new Random(seed), true);
+    }
+
+    /**
+     * Creates a noise generator of another size with the same gradients. Only possible in hashed mode,
+     * where the gradient of a grid point does not depend on the size.
+     * @param width: width in grid cells
+     * @param height: height in grid cells
+     * @return the noise generator with the new size
+     */
+    public PerlinNoise resize(int width, int height) {
+        if (permutation == null)
+            throw new IllegalStateException("only noise in hashed mode can be resized");
+
+        return new PerlinNoise(this, width, height);
     }
 
     public Dimension getRealSize() {
@@ -48,14 +133,64 @@ public class PerlinNoise {
      * @param n: number of gradients to be created
      */
     private void createVectors(int n) {
-        this.Vectors = new ArrayList<>();
+        this.gradientsX = new double[n];
+        this.gradientsY = new double[n];
         for(int i=0;i<n;i++){
             double randomValue = random.nextDouble();
             randomValue = randomValue * 2 * Math.PI;
-            double x = Math.cos(randomValue);
-            double y = Math.sin(randomValue);
-            Vector<Double> grad = new Vector<>(x,y);
-            this.Vectors.add(grad);
+            gradientsX[i] = Math.cos(randomValue);
+            gradientsY[i] = Math.sin(randomValue);
+        }
+    }
+
+    /**
+     * Shuffles the numbers 0 to PERMUTATION_SIZE-1 (Fisher-Yates) and stores them twice,
+     * so that the sum of a table entry and a coordinate byte is always a valid index
+     */
+    private void createPermutation() {
+        this.permutation = new int[2 * PERMUTATION_SIZE];
+        for(int i=0;i<PERMUTATION_SIZE;i++)
+            permutation[i] = i;
+
+        for(int i=PERMUTATION_SIZE-1;i>0;i--){
+            int j = random.nextInt(i + 1);
+            int temp = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = temp;
+        }
+
+        System.arraycopy(permutation, 0, permutation, PERMUTATION_SIZE, PERMUTATION_SIZE);
+    }
+
+    /**
+     * Returns the index of the gradient of grid point (x,y). In hashed mode, both coordinates are hashed byte by byte,
+     * so the pattern only repeats every 65536 cells
+     * @param x: x-coordinate of the grid point
+     * @param y: y-coordinate of the grid point
+     * @return index in the gradient tables
+     */
+    private int gradientIndex(int x, int y) {
+        if (permutation == null)
+            return x+(y*(this.gwidth+1));
+
+        int hash = permutation[x & 0xFF];
+        hash = permutation[hash + (y & 0xFF)];
+        hash = permutation[hash + ((x >> 8) & 0xFF)];
+        return permutation[hash + ((y >> 8) & 0xFF)];
+    }
+
+    /**
+     * Precomputes the offset of a pixel to the left/upper edge of its cell and the faded offset for each of the scale
+     * possible positions inside a cell, so that integer coordinates do not need a division or fade per pixel
+     */
+    private void createTables() {
+        this.offsets = new double[scale];
+        this.offsetsRight = new double[scale];
+        this.fades = new double[scale];
+        for(int i=0;i<scale;i++){
+            offsets[i] = (double) i / scale;
+            offsetsRight[i] = offsets[i] - 1.0;
+            fades[i] = fade(offsets[i]);
         }
     }
 
@@ -80,12 +215,13 @@ public class PerlinNoise {
 
     /**
      * Calculates the scalar product between the direction vector and the gradient in the corner
-     * @param vector: direction vector
-     * @param gradient: gradient in the corner
+     * @param dx: x-component of the direction vector
+     * @param dy: y-component of the direction vector
+     * @param gradient: index of the gradient in the corner
      * @return scalar product
      */
-    private double scalarVekGrad(Vector<Double> vector, Vector<Double> gradient){
-        return (vector.getX()*gradient.getX() + vector.getY()*gradient.getY());
+    private double scalarVekGrad(double dx, double dy, int gradient){
+        return (dx*gradientsX[gradient] + dy*gradientsY[gradient]);
     }
 
     /**
@@ -98,6 +234,40 @@ public class PerlinNoise {
     }
 
 
+    /**
+     * Creates the noise value for the given pixel (x,y) using the precomputed offsets and fades
+     * @param x: x-coordinate of point
+     * @param y: y-coordinate of point
+     * @return noise of point
+     * @throws IllegalArgumentException if the point is not in the picture
+     */
+    public double getNoise (int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height)
+            throw new IllegalArgumentException("x or/and y is not in picture");
+
+        int xlo = x / this.scale;
+        int ylo = y / this.scale;
+        int stepX = x - xlo * this.scale;
+        int stepY = y - ylo * this.scale;
+
+        int gradLO = gradientIndex(xlo, ylo);
+
+        int gradRO = gradientIndex(xlo+1, ylo);
+
+        int gradLU = gradientIndex(xlo, ylo+1);
+
+        int gradRU = gradientIndex(xlo+1, ylo+1);
+
+        double dxl = offsets[stepX];
+        double dxr = dxl - 1.0;
+        double dyo = offsets[stepY];
+        double dyu = dyo - 1.0;
+
+        double linIntOben = this.linearInterpolation(this.scalarVekGrad(dxl,dyo,gradLO),this.scalarVekGrad(dxr,dyo,gradRO),fades[stepX]);
+        double linIntUnten = this.linearInterpolation(this.scalarVekGrad(dxl,dyu,gradLU),this.scalarVekGrad(dxr,dyu,gradRU),fades[stepX]);
+        return this.mapToInterval(this.linearInterpolation(linIntOben,linIntUnten,fades[stepY]));
+    }
+
     /**
      * Creates the noise value for the given point (x,y)
      * @param x: x-coordinate of point
@@ -113,41 +283,186 @@ public class PerlinNoise {
         double scaledX = x / this.scale;
         double scaledY = y / this.scale;
 
-        //Left upper edge
+        //Left upper edge, the other corners are one cell to the right and/or below
         int xlo = (int) scaledX;
         int ylo = (int) scaledY;
+        int xro = xlo+1;
+        int ylu = ylo+1;
 
-        //right upper egde
-        int xro = ((int) scaledX)+1;
-        int yro = ((int) scaledY);
+        int gradLO = gradientIndex(xlo, ylo);
 
-        //left lower edge
-        int xlu = (int) scaledX;
-        int ylu = ((int) scaledY)+1;
+        int gradRO = gradientIndex(xlo+1, ylo);
 
-        //right lower edge
-        int xru = ((int) scaledX)+1;
-        int yru = ((int) scaledY)+1;
+        int gradLU = gradientIndex(xlo, ylo+1);
 
-        // int cell_nr = xlo+(ylo*this.gwidth);
+        int gradRU = gradientIndex(xlo+1, ylo+1);
 
-        Vector<Double> gradLO = this.Vectors.get(xlo+(ylo*(this.gwidth+1)));
-        Vector<Double> gradRO = this.Vectors.get(xro+(yro*(this.gwidth+1)));
-        Vector<Double> gradLU = this.Vectors.get(xlu+((ylu)*(this.gwidth+1)));
-        Vector<Double> gradRU = this.Vectors.get(xru+((yru)*(this.gwidth+1)));
+        // direction vectors from the corners to the point
+        double dxl = scaledX - xlo;
+        double dxr = scaledX - xro;
+        double dyo = scaledY - ylo;
+        double dyu = scaledY - ylu;
 
-        Vector<Double> rvLO = new Vector<>(scaledX - xlo,scaledY - ylo);
-        Vector<Double> rvRO = new Vector<>(scaledX - xro,scaledY - yro);
-        Vector<Double> rvLU = new Vector<>(scaledX - xlu,scaledY - ylu);
-        Vector<Double> rvRU = new Vector<>(scaledX - xru,scaledY - yru);
+        double fadeX = this.fade(dxl);
 
         //upper edges
-        double linIntOben = this.linearInterpolation(this.scalarVekGrad(rvLO,gradLO),this.scalarVekGrad(rvRO,gradRO),this.fade(rvLO.getX()));
+        double linIntOben = this.linearInterpolation(this.scalarVekGrad(dxl,dyo,gradLO),this.scalarVekGrad(dxr,dyo,gradRO),fadeX);
 
         //lower edges
-        double linIntUnten = this.linearInterpolation(this.scalarVekGrad(rvLU,gradLU),this.scalarVekGrad(rvRU,gradRU),this.fade(rvLO.getX()));
+        double linIntUnten = this.linearInterpolation(this.scalarVekGrad(dxl,dyu,gradLU),this.scalarVekGrad(dxr,dyu,gradRU),fadeX);
 
         //final interpolation
-        return this.mapToInterval(this.linearInterpolation(linIntOben,linIntUnten,this.fade(rvLO.getY())));
+        return this.mapToInterval(this.linearInterpolation(linIntOben,linIntUnten,this.fade(dyo)));
+    }
+
+    /**
+     * Creates the noise values for a horizontal line of pixels, same as calling {@link #getNoise(int, int)} for each of them.
+     * All pixels of a grid cell share their corner gradients, so the gradients and the y-parts of the scalar products
+     * are only computed once per cell. Offsets and fades are read from the precomputed tables.
+     * @param x: x-coordinate of the first point
+     * @param y: y-coordinate of the line
+     * @param length: number of points
+     * @param target: array for the noise values
+     * @param offset: index in target for the first point
+     */
+    public void getNoiseRow(int x, int y, int length, double[] target, int offset) {
+        if (x < 0 || y < 0 || x + length > width || y >= height)
+            throw new IllegalArgumentException("x or/and y is not in picture");
+
+        if (laneKernel) {
+            getNoiseRowLanes(x, y, length, target, offset);
+            return;
+        }
+
+        int ylo = y / this.scale;
+        int stepY = y - ylo * this.scale;
+        double dyo = offsets[stepY];
+        double dyu = dyo - 1.0;
+        double fadeY = fades[stepY];
+
+        int xlo = x / this.scale;
+        int stepX = x - xlo * this.scale;
+        double gxLO = 0, gxRO = 0, gxLU = 0, gxRU = 0;
+        double yLO = 0, yRO = 0, yLU = 0, yRU = 0;
+        for (int i = 0; i < length; i++, stepX++) {
+
+            // entering a new cell
+            if (i == 0 || stepX == this.scale) {
+                if (stepX == this.scale) {
+                    stepX = 0;
+                    xlo++;
+                }
+
+                int gradLO = gradientIndex(xlo, ylo);
+
+                int gradRO = gradientIndex(xlo+1, ylo);
+
+                int gradLU = gradientIndex(xlo, ylo+1);
+
+                int gradRU = gradientIndex(xlo+1, ylo+1);
+
+                gxLO = gradientsX[gradLO];
+                gxRO = gradientsX[gradRO];
+                gxLU = gradientsX[gradLU];
+                gxRU = gradientsX[gradRU];
+
+                yLO = dyo*gradientsY[gradLO];
+                yRO = dyo*gradientsY[gradRO];
+                yLU = dyu*gradientsY[gradLU];
+                yRU = dyu*gradientsY[gradRU];
+            }
+
+            double dxl = offsets[stepX];
+            double dxr = dxl - 1.0;
+            double fadeX = fades[stepX];
+
+            double linIntOben = this.linearInterpolation(dxl*gxLO + yLO, dxr*gxRO + yRO, fadeX);
+            double linIntUnten = this.linearInterpolation(dxl*gxLU + yLU, dxr*gxRU + yRU, fadeX);
+            target[offset + i] = this.mapToInterval(this.linearInterpolation(linIntOben, linIntUnten, fadeY));
+        }
+    }
+
+    /**
+     * Same as the scalar loop of {@link #getNoiseRow(int, int, int, double[], int)}, but the pixels of each cell are
+     * processed in a separate loop without branches. The loop reads the tables and writes a buffer at the same index,
+     * so the JIT compiler can prove that the iterations are independent and evaluate several pixels (lanes) at once
+     * with SIMD instructions. The operations are the same as in the scalar loop, so the results are identical.
+     */
+    private void getNoiseRowLanes(int x, int y, int length, double[] target, int offset) {
+        int ylo = y / this.scale;
+        int stepY = y - ylo * this.scale;
+        double dyo = offsets[stepY];
+        double dyu = dyo - 1.0;
+        double fadeY = fades[stepY];
+
+        // one cell of results, indexed like the tables
+        double[] lanes = LANES.get();
+        if (lanes.length < this.scale) {
+            lanes = new double[this.scale];
+            LANES.set(lanes);
+        }
+
+        int end = x + length;
+        int position = x;
+        while (position < end) {
+            int xlo = position / this.scale;
+            int from = position - xlo * this.scale;
+            int to = Math.min(this.scale, end - xlo * this.scale);
+
+            int gradLO = gradientIndex(xlo, ylo);
+
+            int gradRO = gradientIndex(xlo+1, ylo);
+
+            int gradLU = gradientIndex(xlo, ylo+1);
+
+            int gradRU = gradientIndex(xlo+1, ylo+1);
+
+            double gxLO = gradientsX[gradLO];
+            double gxRO = gradientsX[gradRO];
+            double gxLU = gradientsX[gradLU];
+            double gxRU = gradientsX[gradRU];
+
+            double yLO = dyo*gradientsY[gradLO];
+            double yRO = dyo*gradientsY[gradRO];
+            double yLU = dyu*gradientsY[gradLU];
+            double yRU = dyu*gradientsY[gradRU];
+
+            for (int s = from; s < to; s++) {
+                double dxl = offsets[s];
+                double dxr = offsetsRight[s];
+                double fadeX = fades[s];
+
+                double linIntOben = (1.0-fadeX)*(dxl*gxLO + yLO) + fadeX*(dxr*gxRO + yRO);
+                double linIntUnten = (1.0-fadeX)*(dxl*gxLU + yLU) + fadeX*(dxr*gxRU + yRU);
+                lanes[s] = ((1.0-fadeY)*linIntOben + fadeY*linIntUnten + 1.0)/2.0;
+            }
+
+            System.arraycopy(lanes, from, target, offset + (position - x), to - from);
+            position = xlo * this.scale + to;
+        }
+    }
+
+    /**
+     * Chooses between the lane kernel (default) and the scalar loop for the batch methods,
+     * both produce the same values. The scalar loop is kept as a fallback and as a reference for the benchmark
+     * next to the tests (tests.student.PerlinNoiseBenchmark).
+     * @param laneKernel: true to use the lane kernel
+     */
+    public void setLaneKernel(boolean laneKernel) {
+        this.laneKernel = laneKernel;
+    }
+
+    /**
+     * Creates the noise values for a rectangular area, row by row
+     * @param x: x-coordinate of the upper left point
+     * @param y: y-coordinate of the upper left point
+     * @param w: width of the area
+     * @param h: height of the area
+     * @param target: array for the noise values, at least w*h entries
+     * @see #getNoiseRow(int, int, int, double[], int)
+     */
+    public void getNoiseTile(int x, int y, int w, int h, double[] target) {
+        for (int row = 0; row < h; row++)
+            getNoiseRow(x, y + row, w, target, row * w);
     }
 }
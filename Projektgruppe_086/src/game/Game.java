@@ -17,6 +17,7 @@ public class Game {
     private boolean hasStarted;
     private int round;
     private MapSize mapSize;
+    private int castleCount;
     private GameMap gameMap;
     private Queue<Player> playerQueue;
     private Player startingPlayer;
@@ -24,11 +25,26 @@ public class Game {
     private GameInterface gameInterface;
     private AttackThread attackThread;
 
+    // Number of kingdoms controlled by each player, kept up to date by onKingdomOwnerChanged
+    private Map<Player, Integer> controlledKingdoms;
+
+    // Copy of the state of all castles for cheap snapshots, updated with every change of a castle
+    private List<Castle> castles;
+    private Map<Castle, Integer> castleIndices;
+    private GameSnapshot castleState;
+    private Deque<GameSnapshot> undoStack;
+
+    // Set while applyState or restore rewrite the castles, the interface is only told about the result
+    private boolean applyingState;
+
     public Game() {
         this.isOver = false;
         this.hasStarted = false;
         this.mapSize = MapSize.MEDIUM;
+        this.castleCount = GameConstants.CUSTOM_CASTLES_DEFAULT;
         this.players = new LinkedList<>();
+        this.controlledKingdoms = new HashMap<>();
+        this.undoStack = new ArrayDeque<>();
     }
 
     public void addPlayer(Player p) {
@@ -51,23 +67,61 @@ public class Game {
         this.mapSize = mapSize;
     }
 
-    private void generateMap() {
+    /**
+     * Legt die Anzahl der Burgen für benutzerdefinierte Karten fest, siehe {@link MapSize#CUSTOM}
+     * @param castleCount die Anzahl der Burgen
+     */
+    public void setCastleCount(int castleCount) {
+        this.castleCount = Math.max(GameConstants.CUSTOM_CASTLES_MIN, Math.min(GameConstants.CUSTOM_CASTLES_MAX, castleCount));
+    }
 
-        int mapSizeMultiplier = this.mapSize.ordinal() + 1;
-        int playerCount = players.size();
-        int numRegions = playerCount * GameConstants.CASTLES_NUMBER_MULTIPLIER * mapSizeMultiplier;
+    /**
+     * Legt eine fertige Karte für das Spiel fest, z.B. eine mit {@link game.map.MapFile#read(java.nio.file.Path)}
+     * geladene. Ohne eigene Karte wird beim Start eine neue Karte generiert.
+     * @param gameMap die Karte
+     */
+    public void setMap(GameMap gameMap) {
+        this.gameMap = gameMap;
+    }
+
+    /**
+     * Erzeugt die Karte für das Spiel, falls noch keine festgelegt wurde. Vorbereitete Karten aus dem
+     * {@link MapPool} werden dabei übernommen. Da auf deren Generierung gewartet werden muss, kann die Methode
+     * vor {@link #start(GameInterface)} in einem Hintergrundthread aufgerufen werden, sonst geschieht es beim Start.
+     */
+    public void generateMap() {
+        if(gameMap != null)
+            return;
+
+        int customCastles = mapSize.isCustom() ? castleCount : 0;
+        GameMap pregenerated = MapPool.getInstance().take(players.size(), mapSize, customCastles);
+        this.gameMap = pregenerated != null ? pregenerated : generateMap(players.size(), mapSize, customCastles);
+    }
+
+    /**
+     * Generiert eine neue Karte für die angegebene Spieleranzahl und Kartengröße
+     * @param playerCount die Anzahl der Spieler
+     * @param mapSize die Kartengröße
+     * @param castleCount die Anzahl der Burgen bei {@link MapSize#CUSTOM}, sonst ignoriert
+     * @return die generierte Karte
+     */
+    static GameMap generateMap(int playerCount, MapSize mapSize, int castleCount) {
+
+        int mapSizeMultiplier = mapSize.getMultiplier();
+        int numRegions = mapSize.isCustom() ? castleCount : playerCount * GameConstants.CASTLES_NUMBER_MULTIPLIER * mapSizeMultiplier;
         double tileMultiplier = 1.0 + (mapSizeMultiplier * 0.3);
 
         // We set up space for 2 times the region count
         int numTiles = (int) Math.ceil(numRegions * tileMultiplier);
 
-        // Our map should be 3:2
-        int width = (int) Math.ceil(0.6 * numTiles);
-        int height = (int) Math.ceil(0.4 * numTiles);
+        // Our map should be 3:2, but the area should grow at most linearly with the region count
+        int maxWidth = (int) Math.ceil(Math.sqrt(1.5 * numRegions * GameConstants.MAP_CELLS_PER_CASTLE));
+        int width = Math.min((int) Math.ceil(0.6 * numTiles), maxWidth);
+        int height = Math.min((int) Math.ceil(0.4 * numTiles), (int) Math.ceil(maxWidth / 1.5));
 
-        int continents = Math.min(3, playerCount + this.mapSize.ordinal());
+        int continents = Math.max(Math.min(3, playerCount + mapSize.ordinal()), numRegions / GameConstants.CASTLES_PER_KINGDOM);
 
-        this.gameMap = GameMap.generateRandomMap(width, height, 40, numRegions, continents);
+        return GameMap.generateRandomMap(width, height, 40, numRegions, continents, GameConstants.MAP_EDGE_MODE);
     }
 
     public void start(GameInterface gameInterface) {
@@ -82,6 +136,20 @@ public class Game {
             throw new IllegalArgumentException("Kein Spielziel gesetzt");
 
         this.generateMap();
+        if(gameMap.getCastles().size() < players.size() * GameConstants.CASTLES_AT_BEGINNING)
+            throw new IllegalArgumentException("Die Karte hat nicht genug Burgen für alle Spieler");
+
+        this.controlledKingdoms.clear();
+        for(Kingdom kingdom : gameMap.getKingdoms())
+            kingdom.addKingdomListener(this::onKingdomOwnerChanged);
+
+        this.castles = gameMap.getCastles();
+        this.castleIndices = new HashMap<>();
+        for(int i = 0; i < castles.size(); i++)
+            castleIndices.put(castles.get(i), i);
+
+        this.castleState = new GameSnapshot(castles.size(), players.size());
+        this.undoStack.clear();
 
         // Create random player order
         this.gameInterface = gameInterface;
@@ -102,6 +170,147 @@ public class Game {
         nextTurn();
     }
 
+    private void onKingdomOwnerChanged(Kingdom kingdom, Player oldOwner, Player newOwner) {
+        if(oldOwner != null)
+            controlledKingdoms.computeIfPresent(oldOwner, (player, count) -> count > 1 ? count - 1 : null);
+        if(newOwner != null)
+            controlledKingdoms.merge(newOwner, 1, Integer::sum);
+
+        // Restoring a state only reports the result, see applyState
+        if(!applyingState)
+            gameInterface.onKingdomOwnerChanged(kingdom, oldOwner, newOwner);
+
+        goal.onKingdomOwnerChanged(kingdom, oldOwner, newOwner);
+    }
+
+    /**
+     * Setzt den Besitzer einer Burg und meldet den Wechsel dem Spielziel
+     * @param castle die Burg
+     * @param player der neue Besitzer
+     */
+    private void setOwner(Castle castle, Player player) {
+        Player oldOwner = castle.getOwner();
+        castle.setOwner(player);
+        updateCastleState(castle);
+        if(oldOwner != player)
+            goal.onCastleOwnerChanged(castle, oldOwner, player);
+    }
+
+    /**
+     * Entfernt Truppen von einer Burg. Verliert die Burg dadurch ihren Besitzer, wird das dem Spielziel gemeldet.
+     * @param castle die Burg
+     * @param troops die Anzahl der Truppen
+     */
+    private void removeTroops(Castle castle, int troops) {
+        Player oldOwner = castle.getOwner();
+        castle.removeTroops(troops);
+        updateCastleState(castle);
+        if(castle.getOwner() != oldOwner)
+            goal.onCastleOwnerChanged(castle, oldOwner, castle.getOwner());
+    }
+
+    /**
+     * Gibt die Anzahl der Königreiche zurück, in denen der Spieler alle Burgen besitzt
+     * @param player der Spieler
+     * @return die Anzahl der Königreiche
+     */
+    public int getControlledKingdoms(Player player) {
+        return controlledKingdoms.getOrDefault(player, 0);
+    }
+
+    private void updateCastleState(Castle castle) {
+        int index = castleIndices.get(castle);
+        castleState.setOwner(index, castle.getOwner() == null ? GameState.NO_OWNER : players.indexOf(castle.getOwner()));
+        castleState.setTroops(index, castle.getTroopCount());
+    }
+
+    /**
+     * Erzeugt eine Momentaufnahme des Spiels. Die Burgen teilt sie sich mit dem Spiel, bis sie sich ändern,
+     * die Kosten hängen daher nur von der Anzahl der geänderten Blöcke von Burgen ab. Siehe {@link GameSnapshot}
+     * @return die Momentaufnahme
+     */
+    public GameSnapshot snapshot() {
+        GameSnapshot snapshot = castleState.branch();
+        for(int i = 0; i < players.size(); i++) {
+            snapshot.setRemainingTroops(i, players.get(i).getRemainingTroops());
+            snapshot.setPoints(i, players.get(i).getPoints());
+        }
+
+        snapshot.setRound(round);
+        snapshot.setCurrentPlayer(currentPlayer == null ? GameState.NO_OWNER : players.indexOf(currentPlayer));
+        return snapshot;
+    }
+
+    /**
+     * Stellt eine mit {@link #snapshot()} erzeugte Momentaufnahme wieder her.
+     * Es werden nur die Blöcke von Burgen zurückgeschrieben, die sich seitdem geändert haben.
+     * @param snapshot die Momentaufnahme
+     */
+    public void restore(GameSnapshot snapshot) {
+        if(snapshot.getCastleCount() != castles.size() || snapshot.getPlayerCount() != players.size())
+            throw new IllegalArgumentException("Die Momentaufnahme passt nicht zu diesem Spiel");
+
+        List<Player> playerList = new ArrayList<>(players);
+        applyingState = true;
+        try {
+            for(int chunk = 0; chunk < snapshot.getChunkCount(); chunk++) {
+                if(snapshot.sharesChunk(castleState, chunk))
+                    continue;
+
+                int end = Math.min(castles.size(), GameSnapshot.chunkStart(chunk + 1));
+                for(int i = GameSnapshot.chunkStart(chunk); i < end; i++)
+                    applyCastle(castles.get(i), snapshot.getOwner(i), snapshot.getTroops(i), playerList);
+            }
+        } finally {
+            applyingState = false;
+        }
+
+        // Share all chunks with the snapshot again
+        castleState = snapshot.branch();
+
+        for(int i = 0; i < playerList.size(); i++) {
+            Player player = playerList.get(i);
+            player.setRemainingTroops(snapshot.getRemainingTroops(i));
+            player.setPoints(snapshot.getPoints(i));
+            goal.onScoreChanged(player, player.getPoints());
+        }
+
+        round = snapshot.getRound();
+        currentPlayer = snapshot.getCurrentPlayer() == GameState.NO_OWNER ? null : playerList.get(snapshot.getCurrentPlayer());
+        if(gameInterface != null)
+            gameInterface.onUpdate();
+    }
+
+    /**
+     * Merkt sich den aktuellen Stand, bevor ein menschlicher Spieler Truppen setzt oder verschiebt
+     * @param player der Spieler, der den Zug macht
+     */
+    private void saveUndoPoint(Player player) {
+        if(player instanceof AI)
+            return;
+
+        undoStack.push(snapshot());
+        if(undoStack.size() > GameConstants.UNDO_LIMIT)
+            undoStack.removeLast();
+    }
+
+    /**
+     * Prüft, ob es einen Zug gibt, der rückgängig gemacht werden kann.
+     * Züge können nur innerhalb des eigenen Zugs und nur bis zum letzten Angriff rückgängig gemacht werden.
+     * @return true, falls {@link #undo()} möglich ist
+     */
+    public boolean canUndo() {
+        return !undoStack.isEmpty() && attackThread == null;
+    }
+
+    /**
+     * Macht das letzte Setzen oder Verschieben von Truppen rückgängig
+     */
+    public void undo() {
+        if(canUndo())
+            restore(undoStack.pop());
+    }
+
     public AttackThread startAttack(Castle source, Castle target, int troopCount) {
         if(attackThread != null)
             return attackThread;
@@ -119,17 +328,19 @@ public class Game {
 
         Integer[] rollAttackerSorted = Arrays.stream(rollAttacker).boxed().sorted(Comparator.reverseOrder()).toArray(Integer[]::new);
         Integer[] rollDefenderSorted = Arrays.stream(rollDefender).boxed().sorted(Comparator.reverseOrder()).toArray(Integer[]::new);
+        undoStack.clear();
 
         Player attacker = attackerCastle.getOwner();
         Player defender = defenderCastle.getOwner();
 
         for(int i = 0; i < Math.min(rollAttacker.length, rollDefender.length); i++) {
             if(rollAttackerSorted[i] > rollDefenderSorted[i]) {
-                defenderCastle.removeTroops(1);
+                removeTroops(defenderCastle, 1);
                 if(defenderCastle.getTroopCount() == 0) {
-                    attackerCastle.removeTroops(1);
-                    defenderCastle.setOwner(attacker);
+                    removeTroops(attackerCastle, 1);
+                    setOwner(defenderCastle, attacker);
                     defenderCastle.addTroops(1);
+                    updateCastleState(defenderCastle);
                     gameInterface.onConquer(defenderCastle, attacker);
                     addScore(attacker, 50);
                     break;
@@ -137,7 +348,7 @@ public class Game {
                     addScore(attacker, 20);
                 }
             } else {
-                attackerCastle.removeTroops(1);
+                removeTroops(attackerCastle, 1);
                 addScore(defender, 30);
             }
         }
@@ -149,7 +360,10 @@ public class Game {
         if(troopCount >= source.getTroopCount() || source.getOwner() != destination.getOwner())
             return;
 
+        saveUndoPoint(source.getOwner());
         source.moveTroops(destination, troopCount);
+        updateCastleState(source);
+        updateCastleState(destination);
         gameInterface.onUpdate();
     }
 
@@ -163,7 +377,11 @@ public class Game {
     }
 
     private boolean allCastlesChosen() {
-        return gameMap.getCastles().stream().noneMatch(c -> c.getOwner() == null);
+        int ownedCastles = 0;
+        for(Player player : players)
+            ownedCastles += player.getNumRegions(this);
+
+        return ownedCastles == gameMap.getCastles().size();
     }
 
     public AttackThread getAttackThread() {
@@ -176,8 +394,9 @@ public class Game {
 
         gameInterface.onCastleChosen(castle, player);
         player.removeTroops(1);
-        castle.setOwner(currentPlayer);
+        setOwner(castle, currentPlayer);
         castle.addTroops(1);
+        updateCastleState(castle);
         addScore(player, 5);
 
         if(player.getRemainingTroops() == 0 || allCastlesChosen()) {
@@ -191,13 +410,19 @@ public class Game {
             return;
 
         count = Math.min(count, player.getRemainingTroops());
+        if(count < 1)
+            return;
+
+        saveUndoPoint(player);
         castle.addTroops(count);
+        updateCastleState(castle);
         player.removeTroops(count);
     }
 
     public void addScore(Player player, int score) {
         player.addPoints(score);
         gameInterface.onAddScore(player, score);
+        goal.onScoreChanged(player, player.getPoints());
     }
 
     public void endGame() {
@@ -216,6 +441,7 @@ public class Game {
     }
 
     public void nextTurn() {
+        undoStack.clear();
 
         if(goal.isCompleted()) {
             endGame();
@@ -246,6 +472,13 @@ public class Game {
         if(round == 0 || (round == 1 && allCastlesChosen()) || (round > 1 && currentPlayer == startingPlayer)) {
             round++;
             gameInterface.onNewRound(round);
+            goal.onNewRound(round);
+
+            // Goals like the round limit may end the game with the new round
+            if(goal.isCompleted()) {
+                endGame();
+                return;
+            }
         }
 
         int numRegions = currentPlayer.getNumRegions(this);
@@ -257,11 +490,9 @@ public class Game {
             addTroops = Math.max(3, numRegions / GameConstants.TROOPS_PER_ROUND_DIVISOR);
             addScore(currentPlayer, addTroops * 5);
 
-            for(Kingdom kingdom : gameMap.getKingdoms()) {
-                if(kingdom.getOwner() == currentPlayer) {
-                    addScore(currentPlayer, 10);
-                    addTroops++;
-                }
+            for(int i = getControlledKingdoms(currentPlayer); i > 0; i--) {
+                addScore(currentPlayer, 10);
+                addTroops++;
             }
         }
 
@@ -275,6 +506,70 @@ public class Game {
         playerQueue.add(currentPlayer);
     }
 
+    /**
+     * Exportiert den aktuellen Spielstand, siehe {@link GameState}
+     * @return der Spielstand
+     */
+    public GameState exportState() {
+        List<Player> playerList = new ArrayList<>(players);
+        GameState state = new GameState(castles.size(), playerList.size());
+
+        for(int i = 0; i < castles.size(); i++) {
+            Castle castle = castles.get(i);
+            state.setOwner(i, castle.getOwner() == null ? GameState.NO_OWNER : playerList.indexOf(castle.getOwner()));
+            state.setTroops(i, castle.getTroopCount());
+        }
+
+        for(int i = 0; i < playerList.size(); i++) {
+            state.setRemainingTroops(i, playerList.get(i).getRemainingTroops());
+            state.setPoints(i, playerList.get(i).getPoints());
+        }
+
+        state.setRound(round);
+        state.setCurrentPlayer(currentPlayer == null ? GameState.NO_OWNER : playerList.indexOf(currentPlayer));
+        return state;
+    }
+
+    /**
+     * Stellt einen mit {@link #exportState()} erzeugten Spielstand wieder her.
+     * Besitzerwechsel werden an die Spieler, Königreiche und das Spielziel gemeldet, die Oberfläche erhält
+     * dagegen nur ein {@link GameInterface#onUpdate()} am Ende und schreibt keine Meldungen ins Log.
+     * Die Methode ist nur für echte Zustandswechsel gedacht (Laden, Zurücksetzen). Eine KI, die Züge
+     * durchspielen möchte, arbeitet auf einer Kopie des {@link GameState} und nicht auf dem Spiel.
+     * @param state der Spielstand
+     */
+    public void applyState(GameState state) {
+        List<Player> playerList = new ArrayList<>(players);
+        if(state.getCastleCount() != castles.size() || state.getPlayerCount() != playerList.size())
+            throw new IllegalArgumentException("Der Spielstand passt nicht zu diesem Spiel");
+
+        applyingState = true;
+        try {
+            for(int i = 0; i < castles.size(); i++)
+                applyCastle(castles.get(i), state.getOwner(i), state.getTroops(i), playerList);
+        } finally {
+            applyingState = false;
+        }
+
+        for(int i = 0; i < playerList.size(); i++) {
+            Player player = playerList.get(i);
+            player.setRemainingTroops(state.getRemainingTroops(i));
+            player.setPoints(state.getPoints(i));
+            goal.onScoreChanged(player, player.getPoints());
+        }
+
+        round = state.getRound();
+        currentPlayer = state.getCurrentPlayer() == GameState.NO_OWNER ? null : playerList.get(state.getCurrentPlayer());
+        if(gameInterface != null)
+            gameInterface.onUpdate();
+    }
+
+    private void applyCastle(Castle castle, int owner, int troops, List<Player> playerList) {
+        setOwner(castle, owner == GameState.NO_OWNER ? null : playerList.get(owner));
+        castle.setTroopCount(troops);
+        updateCastleState(castle);
+    }
+
     public Player getCurrentPlayer() {
         return this.currentPlayer;
     }
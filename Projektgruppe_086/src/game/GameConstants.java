@@ -1,6 +1,8 @@
 package game;
 
 import game.goals.*;
+import game.map.ClusteringMode;
+import game.map.EdgeMode;
 import game.players.*;
 
 import java.awt.*;
@@ -15,6 +17,38 @@ public class GameConstants {
     public static final int CASTLES_AT_BEGINNING = 3;
     public static final int TROOPS_PER_ROUND_DIVISOR = 3;
 
+    // Castle count of custom maps, see MapSize.CUSTOM
+    public static final int CUSTOM_CASTLES_MIN = 50;
+    public static final int CUSTOM_CASTLES_MAX = 5000;
+    public static final int CUSTOM_CASTLES_DEFAULT = 1000;
+    public static final int CUSTOM_CASTLES_STEP = 50;
+
+    // Upper bound for the map area in cells per castle, keeps huge maps from growing quadratically
+    public static final int MAP_CELLS_PER_CASTLE = 75;
+
+    // Large maps get one kingdom per this many castles, smaller maps keep at most 3 kingdoms
+    public static final int CASTLES_PER_KINGDOM = 100;
+
+    // Time budgets for the largest maps: generation, path preview (one frame) and the delays of one AI turn
+    public static final long MAP_GENERATION_BUDGET_MILLIS = 1000;
+    public static final long PATH_PREVIEW_BUDGET_MILLIS = 16;
+    public static final long AI_TURN_BUDGET_MILLIS = 5000;
+
+    // Prints the generation report of every map and all budget overruns, see game.map.GenerationReport
+    public static final boolean DEBUG_TIMINGS = false;
+
+    // Fractal noise of the terrain, see base.FractalNoise
+    public static final int MAP_NOISE_OCTAVES = 4;
+    public static final double MAP_NOISE_LACUNARITY = 2.0;
+    public static final double MAP_NOISE_GAIN = 0.5;
+
+    // Determines how castles are connected, the triangulation based modes always produce a connected map
+    public static final EdgeMode MAP_EDGE_MODE = EdgeMode.GABRIEL;
+
+    // Determines how castles are divided into kingdoms, region growing keeps every kingdom connected.
+    // The k-means variants (LLOYD, HAMERLY, MINI_BATCH) are only used by the game when selected here.
+    public static final ClusteringMode MAP_CLUSTERING_MODE = ClusteringMode.REGION_GROWING;
+
     public static final Color COLOR_WATER = Color.BLUE;
     public static final Color COLOR_SAND  = new Color(210, 170, 109);
     public static final Color COLOR_GRASS = new Color(50, 89, 40);
@@ -28,9 +62,18 @@ public class GameConstants {
         Color.ORANGE
     };
 
+    // Points needed for PointsGoal and the number of rounds of RoundLimitGoal
+    public static final int POINTS_GOAL = 2000;
+    public static final int ROUND_LIMIT = 20;
+
+    // Number of moves a human player can undo, see Game#undo()
+    public static final int UNDO_LIMIT = 50;
+
     public static final Goal GAME_GOALS[] = {
         new ConquerGoal(),
-        // TODO: Add more Goals
+        new KingdomGoal(),
+        new PointsGoal(),
+        new RoundLimitGoal(),
     };
 
     public static final Class<?> PLAYER_TYPES[] = {
@@ -1,6 +1,7 @@
 package game;
 
 import game.map.Castle;
+import game.map.Kingdom;
 
 public interface GameInterface {
 
@@ -15,4 +16,7 @@ public interface GameInterface {
     void onUpdate();
     void onAddScore(Player player, int score);
     int[] onRoll(Player player, int dices, boolean fastForward);
+
+    default void onKingdomOwnerChanged(Kingdom kingdom, Player oldOwner, Player newOwner) {
+    }
 }
@@ -0,0 +1,157 @@
+package game;
+
+import base.ChunkedIntArray;
+
+/**
+ * Ein Spielstand wie {@link GameState}, dessen Burgen in einem {@link ChunkedIntArray} gespeichert sind.
+ * {@link #branch()} erzeugt eine unabhängige Kopie, die sich alle unveränderten Blöcke mit dem Original teilt.
+ * So kostet jede Kopie nur Speicher für die Blöcke, in denen sich Burgen ändern. Das Spiel verwendet das für
+ * das Rückgängigmachen von Zügen, siehe {@link Game#undo()}, eine KI kann damit Züge durchspielen,
+ * ohne den ganzen Spielstand zu kopieren.
+ */
+public class GameSnapshot {
+
+    private final ChunkedIntArray owner;
+    private final ChunkedIntArray troops;
+    private final int[] remainingTroops;
+    private final int[] points;
+    private int round;
+    private int currentPlayer;
+
+    /**
+     * Erzeugt einen leeren Spielstand, in dem keine Burg einen Besitzer hat
+     * @param castleCount die Anzahl der Burgen
+     * @param playerCount die Anzahl der Spieler
+     */
+    public GameSnapshot(int castleCount, int playerCount) {
+        this.owner = new ChunkedIntArray(castleCount);
+        this.troops = new ChunkedIntArray(castleCount);
+        this.remainingTroops = new int[playerCount];
+        this.points = new int[playerCount];
+        this.round = 0;
+        this.currentPlayer = GameState.NO_OWNER;
+        for (int i = 0; i < castleCount; i++)
+            owner.set(i, GameState.NO_OWNER);
+    }
+
+    private GameSnapshot(GameSnapshot source) {
+        this.owner = source.owner.snapshot();
+        this.troops = source.troops.snapshot();
+        this.remainingTroops = source.remainingTroops.clone();
+        this.points = source.points.clone();
+        this.round = source.round;
+        this.currentPlayer = source.currentPlayer;
+    }
+
+    /**
+     * Erzeugt eine unabhängige Kopie, die sich die Daten der Burgen mit diesem Spielstand teilt
+     * @return die Kopie
+     */
+    public GameSnapshot branch() {
+        return new GameSnapshot(this);
+    }
+
+    /**
+     * Wandelt den Spielstand in einen {@link GameState} um
+     * @return der Spielstand als Arrays
+     */
+    public GameState toGameState() {
+        GameState state = new GameState(getCastleCount(), getPlayerCount());
+        for (int i = 0; i < getCastleCount(); i++) {
+            state.setOwner(i, owner.get(i));
+            state.setTroops(i, troops.get(i));
+        }
+
+        for (int i = 0; i < getPlayerCount(); i++) {
+            state.setRemainingTroops(i, remainingTroops[i]);
+            state.setPoints(i, points[i]);
+        }
+
+        state.setRound(round);
+        state.setCurrentPlayer(currentPlayer);
+        return state;
+    }
+
+    /**
+     * Gibt den ersten Index eines Blocks von Burgen zurück, siehe {@link ChunkedIntArray}
+     * @param chunk der Index des Blocks
+     * @return der Index der ersten Burg im Block
+     */
+    static int chunkStart(int chunk) {
+        return chunk << ChunkedIntArray.CHUNK_SHIFT;
+    }
+
+    /**
+     * Gibt die Anzahl der Blöcke von Burgen zurück
+     * @return die Anzahl der Blöcke
+     */
+    int getChunkCount() {
+        return owner.getChunkCount();
+    }
+
+    /**
+     * Prüft, ob ein Block von Burgen in beiden Spielständen sicher gleich ist
+     * @param other der andere Spielstand
+     * @param chunk der Index des Blocks
+     * @return true, wenn sich beide Spielstände den Block teilen
+     */
+    boolean sharesChunk(GameSnapshot other, int chunk) {
+        return owner.sharesChunk(other.owner, chunk) && troops.sharesChunk(other.troops, chunk);
+    }
+
+    public int getCastleCount() {
+        return owner.length();
+    }
+
+    public int getPlayerCount() {
+        return points.length;
+    }
+
+    public int getOwner(int castle) {
+        return owner.get(castle);
+    }
+
+    public void setOwner(int castle, int player) {
+        owner.set(castle, player);
+    }
+
+    public int getTroops(int castle) {
+        return troops.get(castle);
+    }
+
+    public void setTroops(int castle, int troopCount) {
+        troops.set(castle, troopCount);
+    }
+
+    public int getRemainingTroops(int player) {
+        return remainingTroops[player];
+    }
+
+    public void setRemainingTroops(int player, int troopCount) {
+        remainingTroops[player] = troopCount;
+    }
+
+    public int getPoints(int player) {
+        return points[player];
+    }
+
+    public void setPoints(int player, int points) {
+        this.points[player] = points;
+    }
+
+    public int getRound() {
+        return round;
+    }
+
+    public void setRound(int round) {
+        this.round = round;
+    }
+
+    public int getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    public void setCurrentPlayer(int currentPlayer) {
+        this.currentPlayer = currentPlayer;
+    }
+}
@@ -0,0 +1,128 @@
+package game;
+
+import java.util.Arrays;
+
+/**
+ * Ein kompakter Spielstand in Form von Arrays: Besitzer und Truppen pro Burg, verbleibende Truppen und Punkte
+ * pro Spieler, sowie die Runde und der aktuelle Spieler. Burgen und Spieler werden über ihren Index in
+ * {@link game.map.GameMap#getCastles()} bzw. {@link Game#getPlayers()} angesprochen, ein Besitzer von -1 bedeutet,
+ * dass die Burg niemandem gehört.
+ * Ein Spielstand kann mit {@link Game#exportState()} erzeugt und mit {@link Game#applyState(GameState)}
+ * wiederhergestellt werden. Kopien kosten nur ein {@link System#arraycopy} pro Array, sodass sich Spielstände
+ * z.B. für Simulationen schnell vervielfältigen lassen.
+ */
+public class GameState {
+
+    public static final int NO_OWNER = -1;
+
+    private final int[] owner;
+    private final int[] troops;
+    private final int[] remainingTroops;
+    private final int[] points;
+    private int round;
+    private int currentPlayer;
+
+    /**
+     * Erzeugt einen leeren Spielstand, in dem keine Burg einen Besitzer hat
+     * @param castleCount die Anzahl der Burgen
+     * @param playerCount die Anzahl der Spieler
+     */
+    public GameState(int castleCount, int playerCount) {
+        this.owner = new int[castleCount];
+        this.troops = new int[castleCount];
+        this.remainingTroops = new int[playerCount];
+        this.points = new int[playerCount];
+        this.round = 0;
+        this.currentPlayer = NO_OWNER;
+        Arrays.fill(owner, NO_OWNER);
+    }
+
+    /**
+     * Erzeugt eine Kopie des angegebenen Spielstands
+     * @param other der zu kopierende Spielstand
+     */
+    public GameState(GameState other) {
+        this(other.getCastleCount(), other.getPlayerCount());
+        other.copyTo(this);
+    }
+
+    /**
+     * Gibt eine Kopie dieses Spielstands zurück
+     * @return die Kopie
+     */
+    public GameState copy() {
+        return new GameState(this);
+    }
+
+    /**
+     * Kopiert diesen Spielstand in einen anderen Spielstand gleicher Größe, ohne neue Arrays anzulegen
+     * @param target der Spielstand, der überschrieben wird
+     */
+    public void copyTo(GameState target) {
+        if (target.getCastleCount() != getCastleCount() || target.getPlayerCount() != getPlayerCount())
+            throw new IllegalArgumentException("Die Spielstände haben unterschiedliche Größen");
+
+        System.arraycopy(owner, 0, target.owner, 0, owner.length);
+        System.arraycopy(troops, 0, target.troops, 0, troops.length);
+        System.arraycopy(remainingTroops, 0, target.remainingTroops, 0, remainingTroops.length);
+        System.arraycopy(points, 0, target.points, 0, points.length);
+        target.round = round;
+        target.currentPlayer = currentPlayer;
+    }
+
+    public int getCastleCount() {
+        return owner.length;
+    }
+
+    public int getPlayerCount() {
+        return points.length;
+    }
+
+    public int getOwner(int castle) {
+        return owner[castle];
+    }
+
+    public void setOwner(int castle, int player) {
+        owner[castle] = player;
+    }
+
+    public int getTroops(int castle) {
+        return troops[castle];
+    }
+
+    public void setTroops(int castle, int troopCount) {
+        troops[castle] = troopCount;
+    }
+
+    public int getRemainingTroops(int player) {
+        return remainingTroops[player];
+    }
+
+    public void setRemainingTroops(int player, int troopCount) {
+        remainingTroops[player] = troopCount;
+    }
+
+    public int getPoints(int player) {
+        return points[player];
+    }
+
+    public void setPoints(int player, int points) {
+        this.points[player] = points;
+    }
+
+    public int getRound() {
+        return round;
+    }
+
+    public void setRound(int round) {
+        this.round = round;
+    }
+
+    public int getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    public void setCurrentPlayer(int currentPlayer) {
+        this.currentPlayer = currentPlayer;
+    }
+}
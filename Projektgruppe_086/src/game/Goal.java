@@ -1,5 +1,13 @@
 package game;
 
+import game.map.Castle;
+import game.map.Kingdom;
+
+/**
+ * Ein Spielziel. Das Spiel meldet jede Änderung über die on...-Methoden, sodass ein Ziel seinen Zustand
+ * selbst mitzählen kann und {@link #isCompleted()}, {@link #getWinner()} und {@link #hasLost(Player)}
+ * nicht die ganze Karte durchsuchen müssen.
+ */
 public abstract class Goal {
 
     private Game game;
@@ -11,14 +19,59 @@ public abstract class Goal {
         this.description = description;
     }
 
+    /**
+     * Setzt das Spiel und den Zustand des Ziels zurück. Die Ziele aus {@link GameConstants#GAME_GOALS}
+     * werden für jedes Spiel wiederverwendet.
+     * @param game das neue Spiel
+     */
     public void setGame(Game game) {
         this.game = game;
+        this.reset();
     }
 
     public abstract boolean isCompleted();
     public abstract Player getWinner();
     public abstract boolean hasLost(Player player);
 
+    /**
+     * Setzt den gezählten Zustand für ein neues Spiel zurück
+     */
+    protected void reset() {
+    }
+
+    /**
+     * Eine Burg hat den Besitzer gewechselt
+     * @param castle die Burg
+     * @param oldOwner der bisherige Besitzer oder null
+     * @param newOwner der neue Besitzer oder null
+     */
+    public void onCastleOwnerChanged(Castle castle, Player oldOwner, Player newOwner) {
+    }
+
+    /**
+     * Ein Königreich hat den Besitzer gewechselt, siehe {@link Kingdom#getOwner()}
+     * @param kingdom das Königreich
+     * @param oldOwner der bisherige Besitzer oder null
+     * @param newOwner der neue Besitzer oder null
+     */
+    public void onKingdomOwnerChanged(Kingdom kingdom, Player oldOwner, Player newOwner) {
+    }
+
+    /**
+     * Eine neue Runde hat begonnen
+     * @param round die Nummer der Runde
+     */
+    public void onNewRound(int round) {
+    }
+
+    /**
+     * Die Punkte eines Spielers haben sich geändert
+     * @param player der Spieler
+     * @param points die neue Punktzahl
+     */
+    public void onScoreChanged(Player player, int points) {
+    }
+
     public final  String getDescription() {
         return this.description;
     }
@@ -0,0 +1,124 @@
+package game;
+
+import game.map.GameMap;
+import game.map.MapSize;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Diese Klasse generiert Karten im Hintergrund vor, während der Spieler noch im Menü ist.
+ * Es werden immer nur Karten für eine Einstellung (Spieleranzahl und Kartengröße) vorgehalten,
+ * ändern sich die Einstellungen, werden alle vorbereiteten Karten verworfen.
+ * Beim Starten eines Spiels kann so meistens eine fertige Karte übernommen werden, siehe {@link #take(int, MapSize, int)}.
+ * Danach werden die übrigen Karten verworfen, damit ihre Generierung nicht mit dem laufenden Spiel konkurriert.
+ */
+public class MapPool {
+
+    // Number of maps prepared per configuration
+    private static final int POOL_SIZE = 2;
+
+    private static MapPool instance;
+
+    private final ExecutorService executor;
+    private final Deque<Future<GameMap>> maps;
+    private int playerCount;
+    private MapSize mapSize;
+    private int castleCount;
+
+    private MapPool() {
+        this.maps = new ArrayDeque<>();
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MapPool");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Gibt die Instanz des MapPools zurück oder erzeugt eine neue
+     * @return der MapPool
+     */
+    public static synchronized MapPool getInstance() {
+        if(instance == null)
+            instance = new MapPool();
+
+        return instance;
+    }
+
+    /**
+     * Startet die Generierung von Karten für die angegebenen Einstellungen im Hintergrund.
+     * Wurden vorher andere Einstellungen vorbereitet, werden diese Karten verworfen.
+     * @param playerCount die Anzahl der Spieler
+     * @param mapSize die Kartengröße
+     * @param castleCount die Anzahl der Burgen bei {@link MapSize#CUSTOM}, sonst 0
+     */
+    public synchronized void prepare(int playerCount, MapSize mapSize, int castleCount) {
+        if(!matches(playerCount, mapSize, castleCount)) {
+            invalidate();
+            this.playerCount = playerCount;
+            this.mapSize = mapSize;
+            this.castleCount = castleCount;
+        }
+
+        while(maps.size() < POOL_SIZE) {
+            maps.add(executor.submit(() -> Game.generateMap(playerCount, mapSize, castleCount)));
+        }
+    }
+
+    /**
+     * Verwirft alle vorbereiteten Karten. Laufende Generierungen werden unterbrochen und brechen
+     * beim nächsten Schritt ab, siehe {@link GameMap#generateRandomMap(int, int, int, int, int, game.map.EdgeMode, long)}
+     */
+    public synchronized void invalidate() {
+        for(Future<GameMap> map : maps)
+            map.cancel(true);
+
+        maps.clear();
+        this.mapSize = null;
+    }
+
+    /**
+     * Entnimmt eine vorbereitete Karte für die angegebenen Einstellungen und verwirft alle übrigen.
+     * Ist die Generierung noch nicht abgeschlossen, wird auf sie gewartet. Die Methode sollte daher
+     * nicht im Event-Dispatch-Thread aufgerufen werden.
+     * @param playerCount die Anzahl der Spieler
+     * @param mapSize die Kartengröße
+     * @param castleCount die Anzahl der Burgen bei {@link MapSize#CUSTOM}, sonst 0
+     * @return eine fertige Karte oder null, falls keine passende Karte vorbereitet wurde oder ihre Generierung
+     *         fehlgeschlagen ist. Die Karte muss dann neu generiert werden.
+     */
+    public GameMap take(int playerCount, MapSize mapSize, int castleCount) {
+        Future<GameMap> map;
+        synchronized(this) {
+            if(!matches(playerCount, mapSize, castleCount))
+                return null;
+
+            map = maps.poll();
+            invalidate();
+        }
+
+        if(map == null)
+            return null;
+
+        try {
+            return map.get();
+        } catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch(ExecutionException ex) {
+            // A prepared map is only an optimisation, the caller generates a new one
+            ex.getCause().printStackTrace();
+            return null;
+        }
+    }
+
+    private boolean matches(int playerCount, MapSize mapSize, int castleCount) {
+        return this.mapSize == mapSize && this.playerCount == playerCount && this.castleCount == castleCount;
+    }
+}
@@ -5,8 +5,10 @@ import game.map.Castle;
 import java.awt.Color;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 public abstract class Player {
 
@@ -15,11 +17,15 @@ public abstract class Player {
     private int points;
     private int remainingTroops;
 
+    // Castles owned by this player, kept up to date by Castle#setOwner
+    private final Set<Castle> castles;
+
     protected Player(String name, Color color) {
         this.name = name;
         this.points = 0;
         this.color = color;
         this.remainingTroops = 0;
+        this.castles = new LinkedHashSet<>();
     }
 
     public int getRemainingTroops() {
@@ -59,6 +65,14 @@ public abstract class Player {
         this.points += points;
     }
 
+    void setPoints(int points) {
+        this.points = points;
+    }
+
+    void setRemainingTroops(int remainingTroops) {
+        this.remainingTroops = Math.max(0, remainingTroops);
+    }
+
     public void addTroops(int troops) {
         if(troops < 0)
             return;
@@ -73,16 +87,33 @@ public abstract class Player {
         this.remainingTroops -= troops;
     }
 
-    public int getNumRegions(Game game) {
-        return this.getCastles(game).size();
+    public synchronized int getNumRegions(Game game) {
+        return this.castles.size();
+    }
+
+    public synchronized List<Castle> getCastles(Game game) {
+        return new ArrayList<>(this.castles);
+    }
+
+    /**
+     * Fügt eine Burg zu den Burgen des Spielers hinzu. Wird von {@link Castle#setOwner(Player)} aufgerufen.
+     * @param castle die Burg
+     */
+    public synchronized void addCastle(Castle castle) {
+        this.castles.add(castle);
     }
 
-    public List<Castle> getCastles(Game game) {
-        return game.getMap().getCastles().stream().filter(c -> c.getOwner() == this).collect(Collectors.toList());
+    /**
+     * Entfernt eine Burg aus den Burgen des Spielers. Wird von {@link Castle#setOwner(Player)} aufgerufen.
+     * @param castle die Burg
+     */
+    public synchronized void removeCastle(Castle castle) {
+        this.castles.remove(castle);
     }
 
-    public void reset() {
+    public synchronized void reset() {
         this.remainingTroops = 0;
         this.points = 0;
+        this.castles.clear();
     }
 }
@@ -7,10 +7,27 @@ import game.map.Castle;
 
 public class ConquerGoal extends Goal {
 
+    // The player owning every castle, if any
+    private Player conqueror;
+
     public ConquerGoal() {
         super("Eroberung", "Derjenige Spieler gewinnt, der als erstes alle Gebiete erobert hat.");
     }
 
+    @Override
+    protected void reset() {
+        this.conqueror = null;
+    }
+
+    @Override
+    public void onCastleOwnerChanged(Castle castle, Player oldOwner, Player newOwner) {
+        if(oldOwner != null && oldOwner == conqueror)
+            conqueror = null;
+
+        if(newOwner != null && newOwner.getNumRegions(getGame()) == getGame().getMap().getCastles().size())
+            conqueror = newOwner;
+    }
+
     @Override
     public boolean isCompleted() {
         return this.getWinner() != null;
@@ -22,17 +39,7 @@ public class ConquerGoal extends Goal {
         if(game.getRound() < 2)
             return null;
 
-        Player p = null;
-        for(Castle c : game.getMap().getCastles()) {
-            if(c.getOwner() == null)
-                return null;
-            else if(p == null)
-                p = c.getOwner();
-            else if(p != c.getOwner())
-                return null;
-        }
-
-        return p;
+        return conqueror;
     }
 
     @Override
@@ -0,0 +1,57 @@
+package game.goals;
+
+import game.Game;
+import game.Goal;
+import game.Player;
+import game.map.Kingdom;
+
+public class KingdomGoal extends Goal {
+
+    // The player controlling the majority of all kingdoms, if any
+    private Player ruler;
+
+    public KingdomGoal() {
+        super("Königreiche", "Derjenige Spieler gewinnt, der als erstes mehr als die Hälfte aller Königreiche vollständig besitzt.");
+    }
+
+    @Override
+    protected void reset() {
+        this.ruler = null;
+    }
+
+    private boolean isRuler(Player player) {
+        Game game = getGame();
+        int required = game.getMap().getKingdoms().size() / 2 + 1;
+        return game.getControlledKingdoms(player) >= required;
+    }
+
+    @Override
+    public void onKingdomOwnerChanged(Kingdom kingdom, Player oldOwner, Player newOwner) {
+        if(oldOwner != null && oldOwner == ruler && !isRuler(oldOwner))
+            ruler = null;
+
+        if(newOwner != null && ruler == null && isRuler(newOwner))
+            ruler = newOwner;
+    }
+
+    @Override
+    public boolean isCompleted() {
+        return this.getWinner() != null;
+    }
+
+    @Override
+    public Player getWinner() {
+        if(getGame().getRound() < 2)
+            return null;
+
+        return ruler;
+    }
+
+    @Override
+    public boolean hasLost(Player player) {
+        if(getGame().getRound() < 2)
+            return false;
+
+        return player.getNumRegions(getGame()) == 0;
+    }
+}
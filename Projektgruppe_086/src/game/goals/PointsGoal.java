@@ -0,0 +1,55 @@
+package game.goals;
+
+import game.GameConstants;
+import game.Goal;
+import game.Player;
+
+public class PointsGoal extends Goal {
+
+    // The first player reaching the required points, cleared when the points drop below again
+    private Player winner;
+
+    public PointsGoal() {
+        super("Punkte", String.format("Derjenige Spieler gewinnt, der als erstes %d Punkte erreicht.", GameConstants.POINTS_GOAL));
+    }
+
+    @Override
+    protected void reset() {
+        this.winner = null;
+    }
+
+    @Override
+    public void onScoreChanged(Player player, int points) {
+        if(winner == null && points >= GameConstants.POINTS_GOAL)
+            winner = player;
+
+        // Points can go down again when an earlier state is restored, another player may still qualify
+        if(player == winner && points < GameConstants.POINTS_GOAL) {
+            winner = null;
+            for(Player other : getGame().getPlayers()) {
+                if(other.getPoints() >= GameConstants.POINTS_GOAL) {
+                    winner = other;
+                    break;
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean isCompleted() {
+        return this.getWinner() != null;
+    }
+
+    @Override
+    public Player getWinner() {
+        return winner;
+    }
+
+    @Override
+    public boolean hasLost(Player player) {
+        if(getGame().getRound() < 2)
+            return false;
+
+        return player.getNumRegions(getGame()) == 0;
+    }
+}
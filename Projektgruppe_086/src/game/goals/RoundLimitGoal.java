@@ -0,0 +1,46 @@
+package game.goals;
+
+import game.GameConstants;
+import game.Goal;
+import game.Player;
+
+public class RoundLimitGoal extends Goal {
+
+    public RoundLimitGoal() {
+        super("Rundenlimit", String.format("Nach %d Runden gewinnt der Spieler mit den meisten Punkten.", GameConstants.ROUND_LIMIT));
+    }
+
+    // Derived from the current round, so restoring an earlier state also reopens the game
+    @Override
+    public boolean isCompleted() {
+        return getGame().getRound() > GameConstants.ROUND_LIMIT;
+    }
+
+    @Override
+    public Player getWinner() {
+        if(!isCompleted())
+            return null;
+
+        // The player with the most points, a tie has no winner
+        Player winner = null;
+        int bestPoints = -1;
+        for(Player player : getGame().getPlayers()) {
+            if(player.getPoints() > bestPoints) {
+                bestPoints = player.getPoints();
+                winner = player;
+            } else if(player.getPoints() == bestPoints) {
+                winner = null;
+            }
+        }
+
+        return winner;
+    }
+
+    @Override
+    public boolean hasLost(Player player) {
+        if(getGame().getRound() < 2)
+            return false;
+
+        return player.getNumRegions(getGame()) == 0;
+    }
+}
@@ -0,0 +1,127 @@
+package game.map;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Diese Klasse teilt das Hintergrundbild einer {@link GameMap} in quadratische Kacheln auf.
+ * Eine Kachel wird erst erzeugt, wenn sie das erste Mal angefordert wird. Das Erzeugen
+ * geschieht in Hintergrund-Threads, sodass die Oberfläche nicht blockiert wird.
+ * Die zuletzt verwendeten Kacheln werden zwischengespeichert (LRU), ältere Kacheln
+ * werden bei Bedarf neu erzeugt.
+ */
+public class BackgroundTiles {
+
+    public static final int TILE_SIZE = 256;
+
+    // Enough tiles to cover a large screen several times
+    private static final int CACHE_SIZE = 64;
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1), runnable -> {
+                Thread thread = new Thread(runnable, "BackgroundTiles");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final GameMap gameMap;
+    private final int columns, rows;
+    private final int[] colors;
+
+    private final Map<Integer, BufferedImage> tiles;
+    private final Set<Integer> pending;
+
+    BackgroundTiles(GameMap gameMap) {
+        this.gameMap = gameMap;
+        this.columns = (gameMap.getWidth() + TILE_SIZE - 1) / TILE_SIZE;
+        this.rows = (gameMap.getHeight() + TILE_SIZE - 1) / TILE_SIZE;
+        this.colors = Arrays.stream(GameMap.TERRAIN_COLORS).mapToInt(Color::getRGB).toArray();
+        this.pending = new HashSet<>();
+        this.tiles = new LinkedHashMap<Integer, BufferedImage>(CACHE_SIZE, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, BufferedImage> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Gibt die Kachel an der angegebenen Position zurück. Ist die Kachel noch nicht erzeugt,
+     * wird sie im Hintergrund erzeugt und null zurückgegeben. Sobald sie fertig ist, wird
+     * onReady aufgerufen (nicht im Event-Dispatch-Thread). Schlägt das Erzeugen fehl, wird onReady nicht
+     * aufgerufen und die Kachel bei der nächsten Anfrage erneut erzeugt.
+     * @param column die Spalte der Kachel
+     * @param row die Zeile der Kachel
+     * @param onReady wird aufgerufen, sobald die Kachel verfügbar ist
+     * @return die Kachel oder null, falls sie noch nicht erzeugt wurde
+     */
+    public BufferedImage getTile(int column, int row, Runnable onReady) {
+        if (column < 0 || row < 0 || column >= columns || row >= rows)
+            return null;
+
+        int key = row * columns + column;
+        synchronized (tiles) {
+            BufferedImage tile = tiles.get(key);
+            if (tile != null || !pending.add(key))
+                return tile;
+        }
+
+        EXECUTOR.execute(() -> {
+            BufferedImage tile = null;
+            try {
+                tile = renderTile(column, row);
+            } finally {
+                // A failed tile is not cached, so the next request tries again
+                synchronized (tiles) {
+                    pending.remove(key);
+                    if (tile != null)
+                        tiles.put(key, tile);
+                }
+            }
+
+            if (onReady != null)
+                onReady.run();
+        });
+
+        return null;
+    }
+
+    /**
+     * Erzeugt eine Kachel sofort im aufrufenden Thread
+     * @param column die Spalte der Kachel
+     * @param row die Zeile der Kachel
+     * @return die erzeugte Kachel
+     */
+    BufferedImage renderTile(int column, int row) {
+        int x0 = column * TILE_SIZE;
+        int y0 = row * TILE_SIZE;
+        int w = Math.min(TILE_SIZE, gameMap.getWidth() - x0);
+        int h = Math.min(TILE_SIZE, gameMap.getHeight() - y0);
+
+        byte[] terrain = new byte[w * h];
+        gameMap.getTerrainClasses(x0, y0, w, h, terrain);
+
+        int[] pixels = new int[w * h];
+        for (int i = 0; i < pixels.length; i++)
+            pixels[i] = colors[terrain[i]];
+
+        BufferedImage tile = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        tile.setRGB(0, 0, w, h, pixels, 0, w);
+        return tile;
+    }
+}
@@ -87,8 +87,24 @@ public class Castle {
         return this.distance(otherLocation);
     }
 
+    /**
+     * Setzt den Besitzer der Burg, die Burgen des alten und neuen Besitzers sowie das Königreich werden entsprechend angepasst
+     * @param player der neue Besitzer oder null
+     */
     public void setOwner(Player player) {
+        if(this.owner == player)
+            return;
+
+        Player oldOwner = this.owner;
+        if(oldOwner != null)
+            oldOwner.removeCastle(this);
+
         this.owner = player;
+        if(player != null)
+            player.addCastle(this);
+
+        if(this.kingdom != null)
+            this.kingdom.ownerChanged(oldOwner, player);
     }
 
     public void addTroops(int i) {
@@ -98,6 +114,15 @@ public class Castle {
         this.troopCount += i;
     }
 
+    /**
+     * Setzt die Anzahl der Truppen direkt, z.B. beim Wiederherstellen eines Spielstands.
+     * Der Besitzer bleibt dabei unverändert.
+     * @param troopCount die neue Anzahl der Truppen
+     */
+    public void setTroopCount(int troopCount) {
+        this.troopCount = Math.max(0, troopCount);
+    }
+
     public String getName() {
         return this.name;
     }
@@ -105,7 +130,7 @@ public class Castle {
     public void removeTroops(int i) {
         this.troopCount = Math.max(0, this.troopCount - i);
         if(this.troopCount == 0)
-            this.owner = null;
+            this.setOwner(null);
     }
 
     /**
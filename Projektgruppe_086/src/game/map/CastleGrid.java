@@ -0,0 +1,185 @@
+package game.map;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Diese Klasse ist ein gleichmäßiges Raster über die Positionen einer Liste von Burgen.
+ * Jede Burg wird genau einer Zelle zugeordnet, sodass Umkreissuchen nur die
+ * benachbarten Zellen betrachten müssen, anstatt alle Burgen zu vergleichen.
+ * Die Burgen werden über ihren Index in der übergebenen Liste angesprochen.
+ */
+class CastleGrid {
+
+    private final int[] xs, ys;
+    private final int minX, minY;
+    private final int cellSize;
+    private final int columns, rows;
+
+    // Burgen sortiert nach Zelle, cellStart[c] bis cellStart[c + 1] sind die Burgen der Zelle c
+    private final int[] cellStart;
+    private final int[] cellItems;
+
+    /**
+     * Erzeugt ein neues Raster
+     * @param castles die Burgen, die einsortiert werden sollen
+     * @param cellSize die minimale Kantenlänge einer Zelle
+     */
+    CastleGrid(List<Castle> castles, int cellSize) {
+        int n = castles.size();
+        this.xs = new int[n];
+        this.ys = new int[n];
+
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            Point location = castles.get(i).getLocationOnMap();
+            xs[i] = location.x;
+            ys[i] = location.y;
+            minX = Math.min(minX, location.x);
+            minY = Math.min(minY, location.y);
+            maxX = Math.max(maxX, location.x);
+            maxY = Math.max(maxY, location.y);
+        }
+
+        if (n == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+
+        // Keep the number of cells in the order of the number of castles
+        long area = (long) (maxX - minX + 1) * (maxY - minY + 1);
+        int minCellSize = (int) Math.ceil(Math.sqrt((double) area / Math.max(1, n)));
+
+        this.minX = minX;
+        this.minY = minY;
+        this.cellSize = Math.max(1, Math.max(cellSize, minCellSize));
+        this.columns = (maxX - minX) / this.cellSize + 1;
+        this.rows = (maxY - minY) / this.cellSize + 1;
+
+        // Counting sort of all castles by cell
+        this.cellStart = new int[columns * rows + 1];
+        this.cellItems = new int[n];
+        for (int i = 0; i < n; i++)
+            cellStart[cellOf(i) + 1]++;
+
+        for (int c = 0; c < columns * rows; c++)
+            cellStart[c + 1] += cellStart[c];
+
+        int[] fill = Arrays.copyOf(cellStart, cellStart.length - 1);
+        for (int i = 0; i < n; i++)
+            cellItems[fill[cellOf(i)]++] = i;
+    }
+
+    private int cellOf(int i) {
+        return ((ys[i] - minY) / cellSize) * columns + (xs[i] - minX) / cellSize;
+    }
+
+    /**
+     * Gibt die Anzahl der Burgen im Raster zurück
+     * @return die Anzahl der Burgen
+     */
+    int size() {
+        return xs.length;
+    }
+
+    /**
+     * Berechnet das Quadrat der euklidischen Distanz zwischen zwei Burgen
+     * @param i der Index der ersten Burg
+     * @param j der Index der zweiten Burg
+     * @return die quadrierte Distanz
+     */
+    long distanceSquared(int i, int j) {
+        long dx = xs[i] - xs[j];
+        long dy = ys[i] - ys[j];
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Gibt alle Burgen mit einem größeren Index als i zurück, die höchstens radius von der Burg i entfernt sind.
+     * Da nur größere Indizes betrachtet werden, wird jedes Paar genau einmal gefunden.
+     * @param i der Index der Burg
+     * @param radius der maximale Abstand
+     * @return die aufsteigend sortierten Indizes der gefundenen Burgen
+     */
+    int[] getCloseCastles(int i, int radius) {
+        long radiusSquared = (long) radius * radius;
+        int reach = (radius + cellSize - 1) / cellSize;
+        int cx = (xs[i] - minX) / cellSize;
+        int cy = (ys[i] - minY) / cellSize;
+
+        int[] result = new int[8];
+        int count = 0;
+        for (int y = Math.max(0, cy - reach); y <= Math.min(rows - 1, cy + reach); y++) {
+            for (int x = Math.max(0, cx - reach); x <= Math.min(columns - 1, cx + reach); x++) {
+                int cell = y * columns + x;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    int j = cellItems[k];
+                    if (j > i && distanceSquared(i, j) <= radiusSquared) {
+                        if (count == result.length)
+                            result = Arrays.copyOf(result, count * 2);
+                        result[count++] = j;
+                    }
+                }
+            }
+        }
+
+        result = Arrays.copyOf(result, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Sucht die nächstgelegene Burg zur Burg i, die das angegebene Kriterium erfüllt.
+     * Dazu werden die Zellen ringförmig um die Burg abgesucht, bis kein näherer Treffer mehr möglich ist.
+     * @param i der Index der Burg
+     * @param accept das Kriterium für die gesuchte Burg
+     * @param maxDistanceSquared es werden nur Burgen gesucht, deren quadrierte Distanz kleiner ist
+     * @return der Index der nächstgelegenen Burg oder -1, falls keine gefunden wurde
+     */
+    int getNearestCastle(int i, IntPredicate accept, long maxDistanceSquared) {
+        int cx = (xs[i] - minX) / cellSize;
+        int cy = (ys[i] - minY) / cellSize;
+
+        long best = maxDistanceSquared;
+        int bestIndex = -1;
+        for (int ring = 0; ; ring++) {
+
+            // Stop if the ring lies outside of the grid
+            if (cx - ring < 0 && cy - ring < 0 && cx + ring >= columns && cy + ring >= rows)
+                break;
+
+            // Every castle in this ring is at least (ring - 1) cells away
+            long minDistance = (long) Math.max(0, ring - 1) * cellSize;
+            if (minDistance * minDistance >= best)
+                break;
+
+            for (int y = cy - ring; y <= cy + ring; y++) {
+                if (y < 0 || y >= rows)
+                    continue;
+
+                boolean fullRow = (y == cy - ring || y == cy + ring);
+                for (int x = cx - ring; x <= cx + ring; x += fullRow ? 1 : 2 * Math.max(1, ring)) {
+                    if (x < 0 || x >= columns)
+                        continue;
+
+                    int cell = y * columns + x;
+                    for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                        int j = cellItems[k];
+                        if (j == i || !accept.test(j))
+                            continue;
+
+                        long distance = distanceSquared(i, j);
+                        if (distance < best || (distance == best && j < bestIndex)) {
+                            best = distance;
+                            bestIndex = j;
+                        }
+                    }
+                }
+            }
+        }
+
+        return bestIndex;
+    }
+}
@@ -1,18 +1,104 @@
 package game.map;
 
+import base.Edge;
+import base.Graph;
+import base.Node;
+
+import java.awt.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Random;
+import java.util.stream.IntStream;
 
 /**
- * Diese Klasse teilt Burgen in Königreiche auf
+ * Diese Klasse teilt Burgen in Königreiche auf. Dazu wird der k-means Algorithmus von Lloyd verwendet:
+ * Jede Burg wird dem nächstgelegenen Zentrum zugeordnet, danach wird jedes Zentrum in den Schwerpunkt
+ * seiner Burgen verschoben. Die Zuordnung erfolgt parallel in Blöcken, jeder Block summiert die Koordinaten
+ * seiner Burgen getrennt auf, sodass die Threads keine gemeinsamen Daten schreiben.
+ * Die ersten Zentren werden mit k-means++ gewählt, der Algorithmus endet, sobald sich die Zuordnung nicht
+ * mehr ändert oder die Zentren sich kaum noch bewegen.
+ * Siehe auch {@link ClusteringMode}
  */
 public class Clustering {
 
+    // Upper bound for the number of Lloyd iterations
+    private static final int MAX_ITERATIONS = 100;
+
+    // Centers moving less than this distance are considered converged
+    private static final double EPSILON = 0.5;
+
+    // Castles per block of the parallel assignment step
+    private static final int CHUNK_SIZE = 1024;
+
+    // Mini-batch: castles per batch and upper bound for the number of batches
+    private static final int BATCH_SIZE = 256;
+    private static final int MAX_BATCHES = 100;
+
+    // Mini-batch: converged once no center moves more than this fraction of the spread of the castles in one batch
+    private static final double BATCH_TOLERANCE = 0.01;
+
+    // Number of different kingdom types, see Kingdom#getType()
+    private static final int KINGDOM_TYPES = 6;
+
+    // Safety margin for the distance bounds, covers rounding errors of the bound updates
+    private static final double BOUND_SLACK = 1e-6;
+
+    // Region growing: sweeps of rebalance and castles visited per connectivity check, both keep it linear
+    private static final int MAX_REBALANCE_SWEEPS = 8;
+    private static final int LOCAL_SEARCH_LIMIT = 64;
+
     private Random random;
     private final List<Castle> allCastles;
     private final int kingdomCount;
+    private ClusteringMode mode = ClusteringMode.LLOYD;
+    private Graph<Castle> graph;
+
+    // Coordinates of the castles, the current assignment and the centers
+    private double[] xs, ys;
+    private int[] assignment;
+    private double[] centerX, centerY;
+    private int iterations;
+    private long distanceEvaluations;
+
+    // Hamerly: upper bound for the distance to the own center, lower bound for the distance to all other centers
+    private double[] upper, lower;
+
+    // Hamerly: half the distance of each center to the closest other center and the last movement of each center
+    private double[] halfGap, movement;
+
+    // Region growing: neighbours of each castle, see buildNeighbours()
+    private int[] neighbourStart, neighbours;
+
+    /**
+     * Ein Eintrag der Warteschlange beim Wachsen der Königreiche
+     */
+    private static class Frontier implements Comparable<Frontier> {
+
+        private final double distance;
+        private final int region;
+        private final int castle;
+
+        private Frontier(double distance, int region, int castle) {
+            this.distance = distance;
+            this.region = region;
+            this.castle = castle;
+        }
+
+        @Override
+        public int compareTo(Frontier other) {
+            int result = Double.compare(distance, other.distance);
+            if (result == 0)
+                result = Integer.compare(castle, other.castle);
+            if (result == 0)
+                result = Integer.compare(region, other.region);
+            return result;
+        }
+    }
 
     /**
      * Ein neues Clustering-Objekt erzeugen.
@@ -20,21 +106,698 @@ public class Clustering {
      * @param kingdomCount Die Anzahl von Königreichen die generiert werden sollen
      */
     public Clustering(List<Castle> castles, int kingdomCount) {
+        this(castles, kingdomCount, new Random());
+    }
+
+    /**
+     * Ein neues Clustering-Objekt erzeugen, das die angegebene Zufallsquelle verwendet.
+     * Bei gleichem Startwert entstehen so immer die gleichen Königreiche.
+     * @param castles Die Liste von Burgen, die aufgeteilt werden sollen
+     * @param kingdomCount Die Anzahl von Königreichen die generiert werden sollen
+     * @param random Die Zufallsquelle
+     */
+    public Clustering(List<Castle> castles, int kingdomCount, Random random) {
         if (kingdomCount < 2)
             throw new IllegalArgumentException("Ungültige Anzahl an Königreichen");
 
-        this.random = new Random();
+        this.random = random;
         this.kingdomCount = kingdomCount;
         this.allCastles = Collections.unmodifiableList(castles);
     }
 
+    /**
+     * Ein neues Clustering-Objekt für alle Burgen eines Graphen erzeugen.
+     * Nur so kann {@link ClusteringMode#REGION_GROWING} verwendet werden.
+     * @param graph Der Graph der Burgen, die aufgeteilt werden sollen
+     * @param kingdomCount Die Anzahl von Königreichen die generiert werden sollen
+     * @param random Die Zufallsquelle
+     */
+    public Clustering(Graph<Castle> graph, int kingdomCount, Random random) {
+        this(graph.getAllValues(), kingdomCount, random);
+        this.graph = graph;
+    }
+
+    /**
+     * Legt fest, welcher Algorithmus für die Aufteilung verwendet wird
+     * @param mode der Algorithmus
+     */
+    public void setMode(ClusteringMode mode) {
+        this.mode = mode;
+    }
+
     /**
      * Gibt eine Liste von Königreichen zurück.
      * Jedes Königreich sollte dabei einen Index im Bereich 0-5 bekommen, damit die Burg richtig angezeigt werden kann.
      * Siehe auch {@link Kingdom#getType()}
      */
     public List<Kingdom> getPointsClusters() {
-        // TODO Clustering#getPointsClusters()
-        return new ArrayList<>();
+        int n = allCastles.size();
+        xs = new double[n];
+        ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            Point location = allCastles.get(i).getLocationOnMap();
+            xs[i] = location.x;
+            ys[i] = location.y;
+        }
+
+        assignment = new int[n];
+        Arrays.fill(assignment, -1);
+        centerX = new double[kingdomCount];
+        centerY = new double[kingdomCount];
+
+        if (mode == ClusteringMode.REGION_GROWING)
+            growRegions();
+        else if (mode == ClusteringMode.MINI_BATCH)
+            runMiniBatch();
+        else
+            runKMeans();
+
+        return createKingdoms();
+    }
+
+    /**
+     * Führt den k-means Algorithmus aus, siehe {@link ClusteringMode#LLOYD} und {@link ClusteringMode#HAMERLY}
+     */
+    private void runKMeans() {
+        int n = xs.length;
+        movement = new double[kingdomCount];
+        chooseInitialCenters();
+
+        boolean bounded = (mode == ClusteringMode.HAMERLY);
+        if (bounded) {
+            upper = new double[n];
+            lower = new double[n];
+            halfGap = new double[kingdomCount];
+        }
+
+        // Sum of x, sum of y and count per kingdom, one row per block
+        int chunks = (n + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        double[][] sums = new double[chunks][3 * kingdomCount];
+        int[] changes = new int[chunks];
+        long[] evaluations = new long[chunks];
+
+        iterations = 0;
+        while (iterations < MAX_ITERATIONS) {
+            iterations++;
+            if (bounded) {
+                updateHalfGaps();
+                IntStream.range(0, chunks).parallel().forEach(chunk ->
+                        changes[chunk] = assignChunkBounded(chunk, sums[chunk], evaluations));
+            } else {
+                IntStream.range(0, chunks).parallel().forEach(chunk ->
+                        changes[chunk] = assignChunk(chunk, sums[chunk], evaluations));
+            }
+
+            if (Arrays.stream(changes).sum() == 0)
+                break;
+
+            if (updateCenters(sums) < EPSILON * EPSILON)
+                break;
+        }
+
+        distanceEvaluations = Arrays.stream(evaluations).sum();
+    }
+
+    /**
+     * Führt den k-means Algorithmus mit kleinen Stichproben aus. Jede Burg einer Stichprobe zieht ihr nächstes
+     * Zentrum ein Stück zu sich, wobei die Lernrate eines Zentrums mit der Anzahl seiner bisherigen Burgen sinkt.
+     * Der Algorithmus endet, sobald sich in einer Stichprobe kein Zentrum mehr um mehr als {@link #BATCH_TOLERANCE}
+     * der Streuung aller Burgen bewegt. Erst ganz am Ende werden alle Burgen einmal ihrem nächsten Zentrum zugeordnet.
+     */
+    private void runMiniBatch() {
+        int n = xs.length;
+        chooseInitialCenters();
+
+        int batchSize = Math.min(BATCH_SIZE, n);
+        int[] batch = new int[batchSize];
+        int[] nearest = new int[batchSize];
+        long[] updates = new long[kingdomCount];
+        double[] previousX = new double[kingdomCount];
+        double[] previousY = new double[kingdomCount];
+        double tolerance = BATCH_TOLERANCE * getSpread();
+        long count = 0;
+
+        iterations = 0;
+        while (iterations < MAX_BATCHES) {
+            iterations++;
+            for (int b = 0; b < batchSize; b++) {
+                batch[b] = random.nextInt(n);
+                nearest[b] = nearestCenter(xs[batch[b]], ys[batch[b]]);
+            }
+
+            count += (long) batchSize * kingdomCount;
+
+            System.arraycopy(centerX, 0, previousX, 0, kingdomCount);
+            System.arraycopy(centerY, 0, previousY, 0, kingdomCount);
+            for (int b = 0; b < batchSize; b++) {
+                int center = nearest[b];
+                double rate = 1.0 / ++updates[center];
+                centerX[center] += rate * (xs[batch[b]] - centerX[center]);
+                centerY[center] += rate * (ys[batch[b]] - centerY[center]);
+            }
+
+            // Movement of the centers over the whole batch, a single step says little about convergence
+            double maxMovement = 0;
+            for (int k = 0; k < kingdomCount; k++) {
+                double dx = centerX[k] - previousX[k];
+                double dy = centerY[k] - previousY[k];
+                maxMovement = Math.max(maxMovement, dx * dx + dy * dy);
+            }
+
+            if (maxMovement < tolerance * tolerance)
+                break;
+        }
+
+        // Final assignment of all castles
+        int chunks = (n + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        double[][] sums = new double[chunks][3 * kingdomCount];
+        long[] evaluations = new long[chunks];
+        IntStream.range(0, chunks).parallel().forEach(chunk -> assignChunk(chunk, sums[chunk], evaluations));
+        distanceEvaluations = count + Arrays.stream(evaluations).sum();
+    }
+
+    /**
+     * Gibt die Streuung der Burgen zurück, also die Wurzel des mittleren quadrierten Abstands zu ihrem Schwerpunkt
+     * @return die Streuung in Pixeln
+     */
+    private double getSpread() {
+        int n = xs.length;
+        double meanX = 0, meanY = 0;
+        for (int i = 0; i < n; i++) {
+            meanX += xs[i] / n;
+            meanY += ys[i] / n;
+        }
+
+        double sum = 0;
+        for (int i = 0; i < n; i++)
+            sum += (xs[i] - meanX) * (xs[i] - meanX) + (ys[i] - meanY) * (ys[i] - meanY);
+
+        return Math.sqrt(sum / n);
+    }
+
+    /**
+     * Lässt die Königreiche von weit voneinander entfernten Burgen aus entlang der Kanten wachsen.
+     * Es wächst immer das kleinste Königreich, das noch freie Nachbarburgen hat. Es nimmt die Nachbarburg mit der
+     * kürzesten Wegstrecke zu seiner Startburg auf. So sind alle Königreiche zusammenhängend, wenn der Graph
+     * zusammenhängend ist. Wird ein Königreich eingeschlossen, gleicht {@link #rebalance(int[])} die Größen danach
+     * entlang der Grenzen aus. Burgen in einem nicht erreichten Teil des Graphen beginnen ein neues Gebiet des
+     * kleinsten Königreichs.
+     * Bei zusammenhängendem Graphen benötigt das Wachsen O(k·V + (V+E) log V) für V Burgen, E Kanten und k Königreiche. Der Ausgleich kostet pro
+     * Durchlauf O(V+E) mit einem konstanten Faktor für die begrenzte Suche, es gibt höchstens
+     * {@link #MAX_REBALANCE_SWEEPS} Durchläufe.
+     * Da keine Zentren verschoben werden, zählt dieses Verfahren weder Iterationen noch Distanzberechnungen.
+     */
+    private void growRegions() {
+        if (graph == null)
+            throw new IllegalStateException("Für das Wachsen der Königreiche wird der Graph der Burgen benötigt");
+
+        int n = xs.length;
+        int[] seeds = chooseDistantSeeds();
+        buildNeighbours();
+
+        // One queue per kingdom, every castle adds its neighbours once, so there are at most 2 * |E| entries
+        List<PriorityQueue<Frontier>> frontiers = new ArrayList<>(kingdomCount);
+        for (int k = 0; k < kingdomCount; k++) {
+            frontiers.add(new PriorityQueue<>());
+            frontiers.get(k).add(new Frontier(0, k, seeds[k]));
+        }
+
+        int[] sizes = new int[kingdomCount];
+        int assigned = 0;
+        while (assigned < n) {
+            int region = -1;
+            for (int k = 0; k < kingdomCount; k++) {
+                PriorityQueue<Frontier> frontier = frontiers.get(k);
+                while (!frontier.isEmpty() && assignment[frontier.peek().castle] >= 0)
+                    frontier.poll();
+
+                if (!frontier.isEmpty() && (region < 0 || sizes[k] < sizes[region]))
+                    region = k;
+            }
+
+            if (region < 0) {
+                startUnreachedArea(frontiers, sizes);
+                continue;
+            }
+
+            Frontier next = frontiers.get(region).poll();
+            assignment[next.castle] = region;
+            sizes[region]++;
+            assigned++;
+            for (int e = neighbourStart[next.castle]; e < neighbourStart[next.castle + 1]; e++) {
+                int neighbour = neighbours[e];
+                if (assignment[neighbour] < 0) {
+                    double dx = xs[neighbour] - xs[next.castle];
+                    double dy = ys[neighbour] - ys[next.castle];
+                    frontiers.get(region).add(new Frontier(next.distance + Math.sqrt(dx * dx + dy * dy), region, neighbour));
+                }
+            }
+        }
+
+        rebalance(sizes);
+        iterations = 0;
+        distanceEvaluations = 0;
+    }
+
+    /**
+     * Gibt Burgen an der Grenze zweier Königreiche an das kleinere ab, wenn es mindestens zwei Burgen kleiner ist.
+     * Eine Burg wechselt nur, wenn ihr bisheriges Königreich zusammenhängend bleibt, siehe
+     * {@link #staysConnected(int, int[], int[], int)}. Jeder Durchlauf prüft jede Burg einmal, es gibt höchstens
+     * {@link #MAX_REBALANCE_SWEEPS} Durchläufe.
+     * @param sizes die Anzahl der Burgen pro Königreich, wird angepasst
+     */
+    private void rebalance(int[] sizes) {
+        int n = xs.length;
+        int[] visited = new int[n];
+        int[] queue = new int[LOCAL_SEARCH_LIMIT + 1];
+        int stamp = 0;
+
+        boolean moved = true;
+        for (int sweep = 0; sweep < MAX_REBALANCE_SWEEPS && moved; sweep++) {
+            moved = false;
+            for (int castle = 0; castle < n; castle++) {
+                int region = assignment[castle];
+                int target = -1;
+                for (int e = neighbourStart[castle]; e < neighbourStart[castle + 1]; e++) {
+                    int other = assignment[neighbours[e]];
+                    if (sizes[other] + 1 < sizes[region] && (target < 0 || sizes[other] < sizes[target]))
+                        target = other;
+                }
+
+                // Two stamps per check, one for the visited castles and one for the neighbours to reach
+                stamp += 2;
+                if (target < 0 || !staysConnected(castle, visited, queue, stamp))
+                    continue;
+
+                assignment[castle] = target;
+                sizes[region]--;
+                sizes[target]++;
+                moved = true;
+            }
+        }
+    }
+
+    /**
+     * Prüft, ob das Königreich einer Burg ohne diese Burg zusammenhängend bleibt. Das ist der Fall, wenn alle
+     * Nachbarn der Burg im selben Königreich ohne die Burg untereinander verbunden sind. Die Suche beginnt bei einem
+     * dieser Nachbarn und besucht höchstens {@link #LOCAL_SEARCH_LIMIT} Burgen, der Aufwand ist also unabhängig von
+     * der Größe des Königreichs. Wird das Limit erreicht, bleibt die Burg in ihrem Königreich.
+     * @param castle die Burg, die das Königreich verlassen soll
+     * @param visited Markierungen, besucht sind alle Burgen mit dem Wert stamp, zu erreichen alle mit stamp - 1
+     * @param queue Platz für die Warteschlange der Suche
+     * @param stamp der Wert für diese Suche
+     * @return true, wenn alle Nachbarn im selben Königreich erreicht werden
+     */
+    private boolean staysConnected(int castle, int[] visited, int[] queue, int stamp) {
+        int region = assignment[castle];
+        int start = -1;
+        int targets = 0;
+        for (int e = neighbourStart[castle]; e < neighbourStart[castle + 1]; e++) {
+            int neighbour = neighbours[e];
+            if (assignment[neighbour] == region && visited[neighbour] != stamp - 1) {
+                visited[neighbour] = stamp - 1;
+                targets++;
+                start = neighbour;
+            }
+        }
+
+        // A castle without neighbours in its kingdom is its only castle, the last castle of a kingdom never leaves
+        if (start < 0)
+            return false;
+
+        visited[castle] = stamp;
+        visited[start] = stamp;
+        int reached = 1;
+        queue[0] = start;
+        int head = 0, tail = 1;
+        while (head < tail && reached < targets) {
+            int current = queue[head++];
+            for (int e = neighbourStart[current]; e < neighbourStart[current + 1]; e++) {
+                int neighbour = neighbours[e];
+                if (assignment[neighbour] != region || visited[neighbour] == stamp)
+                    continue;
+
+                if (visited[neighbour] == stamp - 1)
+                    reached++;
+
+                if (tail == LOCAL_SEARCH_LIMIT)
+                    return reached == targets;
+
+                visited[neighbour] = stamp;
+                queue[tail++] = neighbour;
+            }
+        }
+
+        return reached == targets;
+    }
+
+    /**
+     * Keinem Königreich sind noch freie Burgen benachbart, der Graph ist also nicht zusammenhängend.
+     * Die freie Burg, die dem Startpunkt des kleinsten Königreichs am nächsten liegt, wird dessen neue Startburg.
+     * @param frontiers die Warteschlangen der Königreiche
+     * @param sizes die Anzahl der Burgen pro Königreich
+     */
+    private void startUnreachedArea(List<PriorityQueue<Frontier>> frontiers, int[] sizes) {
+        int region = 0;
+        for (int k = 1; k < kingdomCount; k++) {
+            if (sizes[k] < sizes[region])
+                region = k;
+        }
+
+        int closest = -1;
+        double closestDistance = Double.MAX_VALUE;
+        for (int i = 0; i < xs.length; i++) {
+            double dx = xs[i] - centerX[region];
+            double dy = ys[i] - centerY[region];
+            if (assignment[i] < 0 && dx * dx + dy * dy < closestDistance) {
+                closest = i;
+                closestDistance = dx * dx + dy * dy;
+            }
+        }
+
+        frontiers.get(region).add(new Frontier(0, region, closest));
+    }
+
+    /**
+     * Wählt k weit voneinander entfernte Burgen aus: Die erste Burg ist zufällig, jede weitere ist die Burg mit dem
+     * größten Abstand zu allen bisher gewählten Burgen. Die Burgen werden auch als Zentren gespeichert.
+     * @return die Indizes der gewählten Burgen
+     */
+    private int[] chooseDistantSeeds() {
+        int n = xs.length;
+        int[] seeds = new int[kingdomCount];
+        seeds[0] = random.nextInt(n);
+
+        double[] distances = new double[n];
+        Arrays.fill(distances, Double.MAX_VALUE);
+        for (int k = 1; k < kingdomCount; k++) {
+            int farthest = 0;
+            for (int i = 0; i < n; i++) {
+                double dx = xs[i] - xs[seeds[k - 1]];
+                double dy = ys[i] - ys[seeds[k - 1]];
+                distances[i] = Math.min(distances[i], dx * dx + dy * dy);
+                if (distances[i] > distances[farthest])
+                    farthest = i;
+            }
+
+            seeds[k] = farthest;
+        }
+
+        for (int k = 0; k < kingdomCount; k++) {
+            centerX[k] = xs[seeds[k]];
+            centerY[k] = ys[seeds[k]];
+        }
+
+        return seeds;
+    }
+
+    /**
+     * Speichert die Nachbarn aller Burgen als Indizes, die Nachbarn der Burg i stehen in
+     * {@link #neighbours} von neighbourStart[i] bis neighbourStart[i + 1]
+     */
+    private void buildNeighbours() {
+        int n = xs.length;
+        Map<Node<Castle>, Integer> indices = new IdentityHashMap<>(n);
+        List<Node<Castle>> nodes = graph.getNodes();
+        for (int i = 0; i < n; i++)
+            indices.put(nodes.get(i), i);
+
+        // The edge list is not necessarily random access, so it is traversed only once
+        List<Edge<Castle>> edges = graph.getEdges();
+        int[] nodeA = new int[edges.size()];
+        int[] nodeB = new int[edges.size()];
+        neighbourStart = new int[n + 1];
+        int e = 0;
+        for (Edge<Castle> edge : edges) {
+            nodeA[e] = indices.get(edge.getNodeA());
+            nodeB[e] = indices.get(edge.getNodeB());
+            neighbourStart[nodeA[e] + 1]++;
+            neighbourStart[nodeB[e] + 1]++;
+            e++;
+        }
+
+        for (int i = 0; i < n; i++)
+            neighbourStart[i + 1] += neighbourStart[i];
+
+        neighbours = new int[neighbourStart[n]];
+        int[] fill = Arrays.copyOf(neighbourStart, n);
+        for (e = 0; e < nodeA.length; e++) {
+            neighbours[fill[nodeA[e]]++] = nodeB[e];
+            neighbours[fill[nodeB[e]]++] = nodeA[e];
+        }
+    }
+
+    /**
+     * Gibt die Anzahl der Iterationen zurück, die der letzte Aufruf von {@link #getPointsClusters()} benötigt hat.
+     * Bei {@link ClusteringMode#REGION_GROWING} ist sie immer 0.
+     * @return die Anzahl der Iterationen
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Gibt die Anzahl der Distanzberechnungen zwischen Burgen und Zentren zurück, die der letzte Aufruf von
+     * {@link #getPointsClusters()} benötigt hat. Bei {@link ClusteringMode#REGION_GROWING} ist sie immer 0.
+     * @return die Anzahl der Distanzberechnungen
+     */
+    public long getDistanceEvaluations() {
+        return distanceEvaluations;
+    }
+
+    /**
+     * Wählt die ersten Zentren nach k-means++ aus: Das erste Zentrum ist eine zufällige Burg, jedes weitere
+     * wird mit einer Wahrscheinlichkeit proportional zum Quadrat der Distanz zum nächsten Zentrum gewählt.
+     */
+    private void chooseInitialCenters() {
+        int n = xs.length;
+        int first = random.nextInt(n);
+        centerX[0] = xs[first];
+        centerY[0] = ys[first];
+
+        double[] distances = new double[n];
+        Arrays.fill(distances, Double.MAX_VALUE);
+        for (int k = 1; k < kingdomCount; k++) {
+            double total = 0;
+            for (int i = 0; i < n; i++) {
+                double dx = xs[i] - centerX[k - 1];
+                double dy = ys[i] - centerY[k - 1];
+                distances[i] = Math.min(distances[i], dx * dx + dy * dy);
+                total += distances[i];
+            }
+
+            // All remaining castles lie on a center, fall back to a uniform choice
+            int chosen = random.nextInt(n);
+            if (total > 0) {
+                double target = random.nextDouble() * total;
+                for (int i = 0; i < n; i++) {
+                    target -= distances[i];
+                    if (target < 0 && distances[i] > 0) {
+                        chosen = i;
+                        break;
+                    }
+                }
+            }
+
+            centerX[k] = xs[chosen];
+            centerY[k] = ys[chosen];
+        }
+    }
+
+    /**
+     * Ordnet jede Burg eines Blocks dem nächstgelegenen Zentrum zu und summiert die Koordinaten pro Königreich
+     * @param chunk der Index des Blocks
+     * @param sums die Summen des Blocks
+     * @param evaluations die Anzahl der Distanzberechnungen pro Block
+     * @return die Anzahl der Burgen, deren Zuordnung sich geändert hat
+     */
+    private int assignChunk(int chunk, double[] sums, long[] evaluations) {
+        Arrays.fill(sums, 0.0);
+        int changes = 0;
+        int start = chunk * CHUNK_SIZE;
+        int end = Math.min(xs.length, start + CHUNK_SIZE);
+        evaluations[chunk] += (long) (end - start) * kingdomCount;
+        for (int i = start; i < end; i++) {
+            int nearest = nearestCenter(xs[i], ys[i]);
+            if (assignment[i] != nearest) {
+                assignment[i] = nearest;
+                changes++;
+            }
+
+            addToSums(sums, nearest, i);
+        }
+
+        return changes;
+    }
+
+    /**
+     * Wie {@link #assignChunk(int, double[], long[])}, aber nach Hamerly: Ist die obere Schranke der Distanz zum
+     * eigenen Zentrum kleiner als die untere Schranke der Distanz zu allen anderen Zentren, oder kleiner als der
+     * halbe Abstand des eigenen Zentrums zum nächsten anderen Zentrum, kann sich die Zuordnung nicht ändern.
+     * Nur sonst werden die Distanzen zu allen Zentren berechnet.
+     * @param chunk der Index des Blocks
+     * @param sums die Summen des Blocks
+     * @param evaluations die Anzahl der Distanzberechnungen pro Block
+     * @return die Anzahl der Burgen, deren Zuordnung sich geändert hat
+     */
+    private int assignChunkBounded(int chunk, double[] sums, long[] evaluations) {
+        Arrays.fill(sums, 0.0);
+
+        // The largest and second largest movement, a lower bound shrinks by the largest movement of another center
+        int fastest = 0;
+        for (int k = 1; k < kingdomCount; k++) {
+            if (movement[k] > movement[fastest])
+                fastest = k;
+        }
+
+        double maxMovement = movement[fastest];
+        double secondMovement = 0;
+        for (int k = 0; k < kingdomCount; k++) {
+            if (k != fastest)
+                secondMovement = Math.max(secondMovement, movement[k]);
+        }
+
+        int changes = 0;
+        long count = 0;
+        int end = Math.min(xs.length, (chunk + 1) * CHUNK_SIZE);
+        for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+            int current = assignment[i];
+            if (current >= 0) {
+                upper[i] += movement[current] + BOUND_SLACK;
+                lower[i] -= (current == fastest ? secondMovement : maxMovement) + BOUND_SLACK;
+
+                double bound = Math.max(halfGap[current], lower[i]);
+                if (upper[i] < bound) {
+                    addToSums(sums, current, i);
+                    continue;
+                }
+
+                // Tighten the upper bound and test again
+                double dx = xs[i] - centerX[current];
+                double dy = ys[i] - centerY[current];
+                upper[i] = Math.sqrt(dx * dx + dy * dy) + BOUND_SLACK;
+                count++;
+                if (upper[i] < bound) {
+                    addToSums(sums, current, i);
+                    continue;
+                }
+            }
+
+            // Same comparison as nearestCenter, so ties are resolved in the same way as in Lloyd's algorithm
+            int nearest = 0;
+            double nearestDistance = Double.MAX_VALUE, secondDistance = Double.MAX_VALUE;
+            for (int k = 0; k < kingdomCount; k++) {
+                double dx = xs[i] - centerX[k];
+                double dy = ys[i] - centerY[k];
+                double distance = dx * dx + dy * dy;
+                if (distance < nearestDistance) {
+                    secondDistance = nearestDistance;
+                    nearestDistance = distance;
+                    nearest = k;
+                } else if (distance < secondDistance) {
+                    secondDistance = distance;
+                }
+            }
+
+            count += kingdomCount;
+            upper[i] = Math.sqrt(nearestDistance) + BOUND_SLACK;
+            lower[i] = Math.sqrt(secondDistance) - BOUND_SLACK;
+            if (current != nearest) {
+                assignment[i] = nearest;
+                changes++;
+            }
+
+            addToSums(sums, nearest, i);
+        }
+
+        evaluations[chunk] += count;
+        return changes;
+    }
+
+    private void addToSums(double[] sums, int center, int i) {
+        sums[3 * center] += xs[i];
+        sums[3 * center + 1] += ys[i];
+        sums[3 * center + 2]++;
+    }
+
+    /**
+     * Berechnet für jedes Zentrum den halben Abstand zum nächsten anderen Zentrum
+     */
+    private void updateHalfGaps() {
+        for (int k = 0; k < kingdomCount; k++) {
+            double closest = Double.MAX_VALUE;
+            for (int j = 0; j < kingdomCount; j++) {
+                if (j == k)
+                    continue;
+
+                double dx = centerX[k] - centerX[j];
+                double dy = centerY[k] - centerY[j];
+                closest = Math.min(closest, dx * dx + dy * dy);
+            }
+
+            halfGap[k] = 0.5 * Math.sqrt(closest) - BOUND_SLACK;
+        }
+    }
+
+    private int nearestCenter(double x, double y) {
+        int nearest = 0;
+        double nearestDistance = Double.MAX_VALUE;
+        for (int k = 0; k < kingdomCount; k++) {
+            double dx = x - centerX[k];
+            double dy = y - centerY[k];
+            double distance = dx * dx + dy * dy;
+            if (distance < nearestDistance) {
+                nearestDistance = distance;
+                nearest = k;
+            }
+        }
+
+        return nearest;
+    }
+
+    /**
+     * Verschiebt jedes Zentrum in den Schwerpunkt seiner Burgen. Die Blöcke werden immer in der gleichen
+     * Reihenfolge addiert, damit das Ergebnis nicht von der Verteilung auf die Threads abhängt.
+     * Zentren ohne Burgen bleiben unverändert. Die Verschiebung jedes Zentrums wird in {@link #movement} gespeichert.
+     * @param sums die Summen aller Blöcke
+     * @return das Quadrat der größten Verschiebung eines Zentrums
+     */
+    private double updateCenters(double[][] sums) {
+        double maxMovement = 0;
+        for (int k = 0; k < kingdomCount; k++) {
+            double sumX = 0, sumY = 0, count = 0;
+            for (double[] chunk : sums) {
+                sumX += chunk[3 * k];
+                sumY += chunk[3 * k + 1];
+                count += chunk[3 * k + 2];
+            }
+
+            movement[k] = 0;
+            if (count > 0) {
+                double dx = sumX / count - centerX[k];
+                double dy = sumY / count - centerY[k];
+                maxMovement = Math.max(maxMovement, dx * dx + dy * dy);
+                movement[k] = Math.sqrt(dx * dx + dy * dy);
+                centerX[k] = sumX / count;
+                centerY[k] = sumY / count;
+            }
+        }
+
+        return maxMovement;
+    }
+
+    /**
+     * Erzeugt die Königreiche aus der aktuellen Zuordnung
+     * @return die Liste der Königreiche
+     */
+    private List<Kingdom> createKingdoms() {
+        List<Kingdom> kingdoms = new ArrayList<>(kingdomCount);
+        for (int k = 0; k < kingdomCount; k++)
+            kingdoms.add(new Kingdom(k % KINGDOM_TYPES));
+
+        for (int i = 0; i < assignment.length; i++)
+            allCastles.get(i).setKingdom(kingdoms.get(assignment[i]));
+
+        return kingdoms;
     }
 }
@@ -0,0 +1,31 @@
+package game.map;
+
+/**
+ * Diese Aufzählung bestimmt, wie {@link Clustering} die Burgen in Königreiche aufteilt.
+ */
+public enum ClusteringMode {
+
+    /**
+     * Der k-means Algorithmus von Lloyd, jede Burg wird in jeder Iteration mit allen Zentren verglichen.
+     */
+    LLOYD,
+
+    /**
+     * Der k-means Algorithmus nach Hamerly. Über Schranken für die Distanzen und die Dreiecksungleichung
+     * werden die meisten Vergleiche übersprungen, das Ergebnis ist aber das gleiche wie bei {@link #LLOYD}.
+     */
+    HAMERLY,
+
+    /**
+     * Mini-batch k-means: Die Zentren werden nur mit kleinen, zufälligen Stichproben von Burgen verschoben,
+     * alle Burgen werden erst am Ende einmal zugeordnet. Für sehr viele Burgen deutlich schneller als
+     * {@link #LLOYD}, die Königreiche sind aber etwas weniger kompakt.
+     */
+    MINI_BATCH,
+
+    /**
+     * Die Königreiche wachsen von weit entfernten Burgen aus entlang der Kanten des Graphen.
+     * Jedes Königreich ist zusammenhängend und hat ungefähr gleich viele Burgen.
+     */
+    REGION_GROWING
+}
@@ -0,0 +1,32 @@
+package game.map;
+
+/**
+ * Diese Aufzählung bestimmt, wie beim Generieren einer Karte die Kanten zwischen den Burgen erzeugt werden.
+ * Siehe auch {@link GameMap#generateRandomMap(int, int, int, int, int, EdgeMode)}
+ */
+public enum EdgeMode {
+
+    /**
+     * Jede Burg wird mit allen Burgen in einem festen Umkreis verbunden.
+     * Der entstehende Graph ist nicht zwingend zusammenhängend.
+     */
+    RADIUS,
+
+    /**
+     * Alle Kanten der Delaunay-Triangulierung der Burgen.
+     * Der Graph ist planar und zusammenhängend.
+     */
+    DELAUNAY,
+
+    /**
+     * Die Kanten des Gabriel-Graphen, zu lange Kanten werden entfernt.
+     * Der minimale Spannbaum bleibt immer erhalten, der Graph ist daher zusammenhängend.
+     */
+    GABRIEL,
+
+    /**
+     * Die Kanten des Relative Neighbourhood Graph, zu lange Kanten werden entfernt.
+     * Der minimale Spannbaum bleibt immer erhalten, der Graph ist daher zusammenhängend.
+     */
+    RELATIVE_NEIGHBOURHOOD
+}
@@ -5,9 +5,18 @@ import game.GameConstants;
 import gui.Resources;
 
 import java.awt.*;
-import java.awt.image.BufferedImage;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 /**
  * Diese Klasse representiert das Spielfeld. Sie beinhaltet das Hintergrundbild,
@@ -19,167 +28,407 @@ import java.util.List;
  */
 public class GameMap {
 
-	private BufferedImage backgroundImage;
+	// Edges longer than this multiple of the median edge length are removed, see generateTriangulationEdges
+	private static final double MAX_EDGE_LENGTH_FACTOR = 2.0;
+
+	// Castle placement, see generateCastles: fields per castle on land, lower bound of the estimated land share,
+	// samples per axis of the estimate and noise rows searched per field
+	private static final double FIELD_RESERVE = 1.5;
+	private static final double MIN_LAND_SHARE = 0.1;
+	private static final int LAND_SAMPLES = 64;
+	private static final int CANDIDATE_ROWS = 16;
+
+	// Colors of the terrain classes, see terrainClass(double)
+	static final Color[] TERRAIN_COLORS = { GameConstants.COLOR_WATER, GameConstants.COLOR_SAND,
+			GameConstants.COLOR_GRASS, GameConstants.COLOR_STONE, GameConstants.COLOR_SNOW };
+
+	private BackgroundTiles backgroundTiles;
+	private GenerationReport generationReport;
 	private Graph<Castle> castleGraph;
 	private List<Kingdom> kingdoms;
 
-	// Map Generation
-	private double[][] noiseValues;
+	// Map Generation, the noise is sampled on demand
+	private FractalNoise noise;
 	private int width, height, scale;
+	private long seed;
+
+	// Independent random streams for each generation step, all derived from the seed
+	private Random noiseRandom, placementRandom, namesRandom, clusteringRandom;
+
+	// Terrain class per pixel (row by row) of loaded maps, decoded on first use
+	private byte[] terrain;
+	private Supplier<byte[]> terrainLoader;
 
 	/**
 	 * Erzeugt eine neue leere Karte. Der Konstruktor sollte niemals direkt
 	 * aufgerufen werden. Um eine neue Karte zu erstellen, muss
-	 * {@link #generateRandomMap(int, int, int, int, int)} verwendet werden
+	 * {@link #generateRandomMap(int, int, int, int, int)} verwendet werden,
+	 * gespeicherte Karten werden mit {@link MapFile#read(Path)} geladen
 	 * 
 	 * @param width  die Breite der Karte
 	 * @param height die Höhe der Karte
 	 * @param scale  der Skalierungsfaktor
+	 * @param seed   der Startwert für alle Zufallszahlen
 	 */
-	private GameMap(int width, int height, int scale) {
+	GameMap(int width, int height, int scale, long seed) {
 		this.castleGraph = new Graph<>();
 		this.width = width;
 		this.height = height;
 		this.scale = scale;
+		this.seed = seed;
+
+		// Each step gets its own stream, so changes in one step do not affect the others
+		SplittableRandom random = new SplittableRandom(seed);
+		this.noiseRandom = new Random(random.split().nextLong());
+		this.placementRandom = new Random(random.split().nextLong());
+		this.namesRandom = new Random(random.split().nextLong());
+		this.clusteringRandom = new Random(random.split().nextLong());
 	}
 
 	/**
-	 * Wandelt einen Noise-Wert in eine Farbe um. Die Methode kann nach belieben
-	 * angepasst werden
+	 * Ordnet einem Noise-Wert eine Geländeart zu (Wasser, Sand, Gras, Stein oder
+	 * Schnee), siehe {@link #TERRAIN_COLORS}
 	 * 
 	 * @param value der Perlin-Noise-Wert
-	 * @return die resultierende Farbe
+	 * @return der Index der Geländeart
 	 */
-	private Color doubleToColor(double value) {
+	static int terrainClass(double value) {
 		if (value <= 0.40)
-			return GameConstants.COLOR_WATER;
+			return 0;
 		else if (value <= 0.5)
-			return GameConstants.COLOR_SAND;
+			return 1;
 		else if (value <= 0.7)
-			return GameConstants.COLOR_GRASS;
+			return 2;
 		else if (value <= 0.8)
-			return GameConstants.COLOR_STONE;
+			return 3;
 		else
-			return GameConstants.COLOR_SNOW;
+			return 4;
 	}
 
 	/**
-	 * Hier wird das Hintergrund-Bild mittels Perlin-Noise erzeugt. Siehe auch:
-	 * {@link PerlinNoise}
+	 * Hier wird der Perlin-Noise für das Hintergrundbild erzeugt. Siehe auch:
+	 * {@link PerlinNoise} und {@link FractalNoise}. Das Bild selbst wird erst bei
+	 * Bedarf in Kacheln gezeichnet, siehe {@link BackgroundTiles}
 	 */
 	private void generateBackground() {
-		PerlinNoise perlinNoise = new PerlinNoise(width, height, scale);
-		Dimension realSize = perlinNoise.getRealSize();
-
-		noiseValues = new double[realSize.width][realSize.height];
-		backgroundImage = new BufferedImage(realSize.width, realSize.height, BufferedImage.TYPE_INT_RGB);
-		for (int x = 0; x < realSize.width; x++) {
-			for (int y = 0; y < realSize.height; y++) {
-				double noiseValue = perlinNoise.getNoise(x, y);
-				noiseValues[x][y] = noiseValue;
-				backgroundImage.setRGB(x, y, doubleToColor(noiseValue).getRGB());
-			}
-		}
+		noise = new FractalNoise(width, height, scale, GameConstants.MAP_NOISE_OCTAVES,
+				GameConstants.MAP_NOISE_LACUNARITY, GameConstants.MAP_NOISE_GAIN, noiseRandom.nextLong());
 	}
 
 	/**
 	 * Hier werden die Burgen erzeugt. Dabei wir die Karte in Felder unterteilt,
-	 * sodass auf jedes Fals maximal eine Burg kommt. Sollte auf einem Feld keine
+	 * sodass auf jedes Feld maximal eine Burg kommt. Sollte auf einem Feld keine
 	 * Position für eine Burg existieren (z.B. aufgrund von Wasser oder angrenzenden
-	 * Burgen), wird dieses übersprungen. Dadurch kann es vorkommen, dass nicht alle
-	 * Burgen generiert werden
+	 * Burgen), wird dieses übersprungen. Die Anzahl der Felder richtet sich nach
+	 * dem geschätzten Landanteil der Karte, sodass in der Regel alle Burgen
+	 * platziert werden können
 	 * 
 	 * @param castleCount die maximale Anzahl der zu generierenden Burgen
 	 */
 	private void generateCastles(int castleCount) {
-		double square = Math.ceil(Math.sqrt(castleCount));
-		double length = width + height;
-
-		int tilesX = (int) Math.max(1, (width / length + 0.5) * square) + 5;
-		int tilesY = (int) Math.max(1, (height / length + 0.5) * square) + 5;
-		int tileW = (width * scale / tilesX);
-		int tileH = (height * scale / tilesY);
-
-		if (tilesX * tilesY < castleCount) {
-			throw new IllegalArgumentException(String.format("CALCULATION Error: tilesX=%d * tilesY=%d < castles=%d",
-					tilesX, tilesY, castleCount));
-		}
-
-		// Add possible tiles
-		List<Point> possibleFields = new ArrayList<>(tilesX * tilesY);
-		for (int x = 0; x < tilesX - 1; x++) {
-			for (int y = 0; y < tilesY - 1; y++) {
-				possibleFields.add(new Point(x, y));
-			}
-		}
+		int pixelWidth = width * scale;
+		int pixelHeight = height * scale;
+
+		// Only fields on land can hold a castle, so there have to be more fields than castles
+		double fieldCount = castleCount * FIELD_RESERVE / Math.max(MIN_LAND_SHARE, estimateLandShare());
+		double fieldSize = Math.sqrt((double) pixelWidth * pixelHeight / fieldCount);
+
+		// The last row and column are only used for the noise lookups of their neighbours
+		int tilesX = (int) Math.round(pixelWidth / fieldSize) + 1;
+		int tilesY = (int) Math.round(pixelHeight / fieldSize) + 1;
+		int tileW = pixelWidth / tilesX;
+		int tileH = pixelHeight / tilesY;
+		int halfW = tileW / 2;
+		int halfH = tileH / 2;
+
+		// Fields are drawn by swapping them with the last open one
+		int[] possibleFields = new int[(tilesX - 1) * (tilesY - 1)];
+		for (int i = 0; i < possibleFields.length; i++)
+			possibleFields[i] = i;
+
+		// Castles closer than minDistance intersect, so only the neighbouring buckets have to be checked
+		int minDistance = Math.max(1, Math.max(tileW, tileH));
+		int bucketColumns = pixelWidth / minDistance + 1;
+		Map<Integer, List<Castle>> buckets = new HashMap<>();
+
+		// Noise of one candidate row, the castle lies half a field left of and above its sample
+		double[] row = new double[halfW + 1];
+		int rowStep = Math.max(1, halfH / CANDIDATE_ROWS);
 
 		// Generate castles
 		List<String> possibleNames = generateCastleNames();
+		int openFields = possibleFields.length;
 		int castlesGenerated = 0;
-		while (possibleFields.size() > 0 && castlesGenerated < castleCount) {
-			Point randomField = possibleFields.remove((int) (Math.random() * possibleFields.size()));
-			int x0 = (int) ((randomField.x + 0.5) * tileW);
-			int y0 = (int) ((randomField.y + 0.5) * tileH);
-
-			for (int x = (int) (0.5 * tileW); x >= 0; x--) {
-				boolean positionFound = false;
-				for (int y = (int) (0.5 * tileH); y >= 0; y--) {
-					int x_mid = (int) (x0 + x + 0.5 * tileW);
-					int y_mid = (int) (y0 + y + 0.5 * tileH);
-					if (noiseValues[x_mid][y_mid] >= 0.6) {
-						String name = possibleNames.isEmpty() ? "Burg " + (castlesGenerated + 1)
-								: possibleNames.get((int) (Math.random() * possibleNames.size()));
-						Castle newCastle = new Castle(new Point(x0 + x, y0 + y), name);
-						boolean doesIntersect = false;
-
-						for (Castle r : castleGraph.getAllValues()) {
-							if (r.distance(newCastle) < Math.max(tileW, tileH)) {
-								doesIntersect = true;
-								break;
-							}
-						}
-
-						if (!doesIntersect) {
-							possibleNames.remove(name);
-							castleGraph.addNode(newCastle);
-							castlesGenerated++;
-							positionFound = true;
-							break;
-						}
+		while (openFields > 0 && castlesGenerated < castleCount) {
+			int pick = placementRandom.nextInt(openFields);
+			int field = possibleFields[pick];
+			possibleFields[pick] = possibleFields[--openFields];
+
+			int x0 = (int) ((field % (tilesX - 1) + 0.5) * tileW);
+			int y0 = (int) ((field / (tilesX - 1) + 0.5) * tileH);
+
+			search:
+			for (int y = halfH; y >= 0; y -= rowStep) {
+				noise.getNoiseRow(x0 + halfW, y0 + y + halfH, halfW + 1, row, 0);
+				for (int x = halfW; x >= 0; x--) {
+					if (row[x] < 0.6 || intersects(buckets, bucketColumns, minDistance, x0 + x, y0 + y))
+						continue;
+
+					String name;
+					if (possibleNames.isEmpty()) {
+						name = "Burg " + (castlesGenerated + 1);
+					} else {
+						// Swap with the last name, so that removing it does not shift the list
+						int last = possibleNames.size() - 1;
+						name = possibleNames.set(namesRandom.nextInt(possibleNames.size()), possibleNames.get(last));
+						possibleNames.remove(last);
 					}
+
+					Castle newCastle = new Castle(new Point(x0 + x, y0 + y), name);
+					castleGraph.addNode(newCastle);
+					int bucket = (y0 + y) / minDistance * bucketColumns + (x0 + x) / minDistance;
+					buckets.computeIfAbsent(bucket, k -> new ArrayList<>()).add(newCastle);
+					castlesGenerated++;
+					break search;
 				}
+			}
+		}
+	}
 
-				if (positionFound)
-					break;
+	/**
+	 * Prüft, ob eine Burg an der Position (x,y) einer bereits platzierten Burg zu
+	 * nahe käme
+	 * 
+	 * @param buckets       die platzierten Burgen, eingeteilt in Quadrate der
+	 *                      Kantenlänge minDistance
+	 * @param bucketColumns die Anzahl der Quadrate pro Zeile
+	 * @param minDistance   der Mindestabstand zweier Burgen
+	 * @param x             die x-Koordinate der Position
+	 * @param y             die y-Koordinate der Position
+	 * @return true, wenn eine Burg näher als minDistance liegt
+	 */
+	private static boolean intersects(Map<Integer, List<Castle>> buckets, int bucketColumns, int minDistance, int x, int y) {
+		int bucketX = x / minDistance;
+		int bucketY = y / minDistance;
+		long limit = (long) minDistance * minDistance;
+		for (int bx = bucketX - 1; bx <= bucketX + 1; bx++) {
+			for (int by = bucketY - 1; by <= bucketY + 1; by++) {
+				for (Castle castle : buckets.getOrDefault(by * bucketColumns + bx, Collections.emptyList())) {
+					Point location = castle.getLocationOnMap();
+					long dx = location.x - x;
+					long dy = location.y - y;
+					if (dx * dx + dy * dy < limit)
+						return true;
+				}
 			}
 		}
+
+		return false;
 	}
 
 	/**
-	 * Hier werden die Kanten erzeugt
+	 * Schätzt den Anteil der Karte, auf dem Burgen stehen können. Dazu wird der
+	 * Noise auf einem groben Raster ausgewertet
+	 * 
+	 * @return der Anteil zwischen 0 und 1
 	 */
-	private void generateEdges() {
+	private double estimateLandShare() {
+		int pixelWidth = width * scale;
+		int pixelHeight = height * scale;
+		int land = 0;
+		for (int i = 0; i < LAND_SAMPLES; i++) {
+			for (int j = 0; j < LAND_SAMPLES; j++) {
+				int x = (int) ((i + 0.5) * pixelWidth / LAND_SAMPLES);
+				int y = (int) ((j + 0.5) * pixelHeight / LAND_SAMPLES);
+				if (noise.getNoise(x, y) >= 0.6)
+					land++;
+			}
+		}
 
-		Node<Castle> mostLeft = castleGraph.getNodes().stream().min((castle1, castle2) -> Integer
-				.compare(castle1.getValue().getLocationOnMap().x, castle2.getValue().getLocationOnMap().x)).get();
+		return (double) land / (LAND_SAMPLES * LAND_SAMPLES);
+	}
+
+	/**
+	 * Hier werden die Kanten erzeugt. Siehe auch {@link EdgeMode}
+	 * 
+	 * @param edgeMode die Art, wie die Burgen verbunden werden
+	 */
+	private void generateEdges(EdgeMode edgeMode) {
+		if (edgeMode == EdgeMode.RADIUS)
+			generateRadiusEdges();
+		else
+			generateTriangulationEdges(edgeMode);
+	}
 
-		for (int i = 0; i < castleGraph.getNodes().size(); i++) {
-			connectToCloseCastles(((width + height)/8), castleGraph.getNodes().get(i));
+	/**
+	 * Jede Burg wird mit allen Burgen in einem festen Umkreis verbunden. Damit
+	 * nicht jede Burg mit jeder anderen verglichen werden muss, werden die Burgen
+	 * vorher in ein {@link CastleGrid} einsortiert. Jedes Paar wird dabei genau
+	 * einmal gefunden, die Suche pro Burg kann daher parallel ablaufen.
+	 */
+	private void generateRadiusEdges() {
+		List<Node<Castle>> nodes = castleGraph.getNodes();
+		int radius = (width + height) / 8;
+		CastleGrid grid = new CastleGrid(castleGraph.getAllValues(), radius);
+
+		int[][] closeCastles = new int[nodes.size()][];
+		IntStream.range(0, nodes.size()).parallel().forEach(i -> closeCastles[i] = grid.getCloseCastles(i, radius));
+
+		// Graph is not thread safe, add the edges in a fixed order
+		for (int i = 0; i < nodes.size(); i++) {
+			for (int j : closeCastles[i]) {
+				castleGraph.addNewEdge(nodes.get(i), nodes.get(j));
+			}
 		}
 	}
-	
-	private void connectToCloseCastles (int r, Node<Castle> c) {
-		for (int i = 0; i < castleGraph.getNodes().size(); i++) {
-			if (castleGraph.getNodes().get(i).equals(c)) {
+
+	/**
+	 * Die Burgen werden anhand der Delaunay-Triangulierung verbunden, siehe
+	 * {@link Delaunay}. Die Kanten des minimalen Spannbaums werden immer
+	 * übernommen, sodass der Graph zusammenhängend ist. Alle anderen Kanten werden
+	 * je nach {@link EdgeMode} gefiltert und dürfen höchstens
+	 * {@link #MAX_EDGE_LENGTH_FACTOR}-mal so lang sein wie der Median aller Kanten.
+	 * 
+	 * @param edgeMode die Art, wie die Kanten gefiltert werden
+	 */
+	private void generateTriangulationEdges(EdgeMode edgeMode) {
+		List<Node<Castle>> nodes = castleGraph.getNodes();
+		double[] xs = new double[nodes.size()];
+		double[] ys = new double[nodes.size()];
+		for (int i = 0; i < nodes.size(); i++) {
+			Point location = nodes.get(i).getValue().getLocationOnMap();
+			xs[i] = location.x;
+			ys[i] = location.y;
+		}
+
+		Delaunay delaunay = new Delaunay(xs, ys);
+		int edgeCount = delaunay.getEdgeCount();
+		if (edgeCount == 0)
+			return;
+
+		// Sort by length on primitive keys: the length as float bits (monotone for non-negative values) and the
+		// edge index in the lower half, which also breaks ties deterministically
+		long[] keys = new long[edgeCount];
+		for (int k = 0; k < edgeCount; k++)
+			keys[k] = ((long) Float.floatToIntBits((float) delaunay.getEdgeLength(k)) << 32) | k;
+		Arrays.sort(keys);
+
+		int[] byLength = new int[edgeCount];
+		for (int k = 0; k < edgeCount; k++)
+			byLength[k] = (int) keys[k];
+
+		// Minimum spanning tree (Kruskal), keeps the graph connected
+		boolean[] keep = new boolean[edgeCount];
+		int[] components = IntStream.range(0, nodes.size()).toArray();
+		for (int k : byLength) {
+			int a = findComponent(components, delaunay.getEdgeStart(k));
+			int b = findComponent(components, delaunay.getEdgeEnd(k));
+			if (a != b) {
+				components[a] = b;
+				keep[k] = true;
+			}
+		}
+
+		double maxLength = MAX_EDGE_LENGTH_FACTOR * delaunay.getEdgeLength(byLength[edgeCount / 2]);
+		for (int k = 0; k < edgeCount; k++) {
+			if (keep[k])
 				continue;
+
+			if (edgeMode == EdgeMode.DELAUNAY)
+				keep[k] = true;
+			else if (delaunay.getEdgeLength(k) > maxLength)
+				keep[k] = false;
+			else if (edgeMode == EdgeMode.GABRIEL)
+				keep[k] = delaunay.isGabrielEdge(k);
+			else if (edgeMode == EdgeMode.RELATIVE_NEIGHBOURHOOD)
+				keep[k] = delaunay.isRelativeNeighbourEdge(k);
+		}
+
+		// Every edge of the triangulation is unique
+		for (int k = 0; k < edgeCount; k++) {
+			if (keep[k])
+				castleGraph.addNewEdge(nodes.get(delaunay.getEdgeStart(k)), nodes.get(delaunay.getEdgeEnd(k)));
+		}
+	}
+
+	/**
+	 * Hier werden nicht zusammenhängende Teile des Graphen miteinander verbunden.
+	 * In jeder Runde wird für jede Zusammenhangskomponente die kürzeste Kante zu
+	 * einer anderen Komponente gesucht und hinzugefügt (Borůvka). Die Suche nach
+	 * der nächstgelegenen Burg verwendet ein {@link CastleGrid}, sodass die Anzahl
+	 * der Komponenten in jeder Runde mindestens halbiert wird.
+	 * 
+	 * @return die Anzahl der hinzugefügten Kanten
+	 */
+	private int connectComponents() {
+		List<Node<Castle>> nodes = castleGraph.getNodes();
+		int n = nodes.size();
+
+		Map<Node<Castle>, Integer> indices = new HashMap<>();
+		for (int i = 0; i < n; i++)
+			indices.put(nodes.get(i), i);
+
+		int[] components = IntStream.range(0, n).toArray();
+		int componentCount = n;
+		for (Edge<Castle> edge : castleGraph.getEdges()) {
+			int a = findComponent(components, indices.get(edge.getNodeA()));
+			int b = findComponent(components, indices.get(edge.getNodeB()));
+			if (a != b) {
+				components[a] = b;
+				componentCount--;
+			}
+		}
+
+		CastleGrid grid = new CastleGrid(castleGraph.getAllValues(), 1);
+		int[] root = new int[n];
+		long[] bestDistance = new long[n];
+		int[] bestFrom = new int[n];
+		int[] bestTo = new int[n];
+		int added = 0;
+
+		while (componentCount > 1) {
+			for (int i = 0; i < n; i++)
+				root[i] = findComponent(components, i);
+
+			Arrays.fill(bestDistance, Long.MAX_VALUE);
+			Arrays.fill(bestFrom, -1);
+
+			// Shortest edge leaving each component
+			for (int i = 0; i < n; i++) {
+				int component = root[i];
+				int j = grid.getNearestCastle(i, other -> root[other] != component, bestDistance[component]);
+				if (j != -1) {
+					bestDistance[component] = grid.distanceSquared(i, j);
+					bestFrom[component] = i;
+					bestTo[component] = j;
+				}
 			}
-			else {
-				Node<Castle> ci = castleGraph.getNodes().get(i);
-				if (c.getValue().distance(castleGraph.getNodes().get(i).getValue()) <= r) {
-					castleGraph.addEdge(c, castleGraph.getNodes().get(i));
+
+			for (int component = 0; component < n; component++) {
+				if (bestFrom[component] == -1)
+					continue;
+
+				int a = findComponent(components, bestFrom[component]);
+				int b = findComponent(components, bestTo[component]);
+				if (a != b) {
+					components[a] = b;
+					componentCount--;
+					castleGraph.addEdge(nodes.get(bestFrom[component]), nodes.get(bestTo[component]));
+					added++;
 				}
 			}
 		}
+
+		return added;
+	}
+
+	private static int findComponent(int[] components, int i) {
+		while (components[i] != i) {
+			components[i] = components[components[i]];
+			i = components[i];
+		}
+
+		return i;
 	}
 
 	/**
@@ -187,20 +436,25 @@ public class GameMap {
 	 * {@link Clustering} Algorithmus aufgerufen.
 	 * 
 	 * @param kingdomCount die Anzahl der zu generierenden Königreiche
+	 * @return das verwendete Clustering oder null, falls keine Königreiche erzeugt wurden
 	 */
-	private void generateKingdoms(int kingdomCount) {
+	private Clustering generateKingdoms(int kingdomCount) {
 		if (kingdomCount > 0 && kingdomCount < castleGraph.getAllValues().size()) {
-			Clustering clustering = new Clustering(castleGraph.getAllValues(), kingdomCount);
+			Clustering clustering = new Clustering(castleGraph, kingdomCount, clusteringRandom);
+			clustering.setMode(GameConstants.MAP_CLUSTERING_MODE);
 			kingdoms = clustering.getPointsClusters();
+			return clustering;
 		} else {
 			kingdoms = new ArrayList<>();
+			return null;
 		}
 	}
 
 	/**
 	 * Eine neue Spielfeldkarte generieren. Dazu werden folgende Schritte
 	 * abgearbeitet: 1. Das Hintergrundbild generieren 2. Burgen generieren 3.
-	 * Kanten hinzufügen 4. Burgen in Köngireiche unterteilen
+	 * Kanten hinzufügen 4. Nicht verbundene Teile verbinden 5. Burgen in
+	 * Köngireiche unterteilen
 	 * 
 	 * @param width        die Breite des Spielfelds
 	 * @param height       die Höhe des Spielfelds
@@ -210,6 +464,47 @@ public class GameMap {
 	 * @return eine neue GameMap-Instanz
 	 */
 	public static GameMap generateRandomMap(int width, int height, int scale, int castleCount, int kingdomCount) {
+		return generateRandomMap(width, height, scale, castleCount, kingdomCount, EdgeMode.RADIUS);
+	}
+
+	/**
+	 * Eine neue Spielfeldkarte generieren, die Burgen werden dabei wie angegeben
+	 * verbunden. Siehe auch {@link #generateRandomMap(int, int, int, int, int)}
+	 * 
+	 * @param width        die Breite des Spielfelds
+	 * @param height       die Höhe des Spielfelds
+	 * @param scale        die Skalierung
+	 * @param castleCount  die maximale Anzahl an Burgen
+	 * @param kingdomCount die Anzahl der Königreiche
+	 * @param edgeMode     die Art, wie die Burgen verbunden werden
+	 * @return eine neue GameMap-Instanz
+	 */
+	public static GameMap generateRandomMap(int width, int height, int scale, int castleCount, int kingdomCount,
+			EdgeMode edgeMode) {
+		return generateRandomMap(width, height, scale, castleCount, kingdomCount, edgeMode, new Random().nextLong());
+	}
+
+	/**
+	 * Eine neue Spielfeldkarte aus einem Startwert generieren. Alle Zufallszahlen
+	 * werden aus dem Startwert abgeleitet, der gleiche Startwert mit den gleichen
+	 * Parametern erzeugt daher immer die gleiche Karte. Siehe auch
+	 * {@link #generateRandomMap(int, int, int, int, int)}. Wird der Thread
+	 * unterbrochen, bricht die Generierung vor dem nächsten Schritt mit einer
+	 * {@link CancellationException} ab.
+	 * 
+	 * @param width        die Breite des Spielfelds
+	 * @param height       die Höhe des Spielfelds
+	 * @param scale        die Skalierung
+	 * @param castleCount  die maximale Anzahl an Burgen
+	 * @param kingdomCount die Anzahl der Königreiche
+	 * @param edgeMode     die Art, wie die Burgen verbunden werden
+	 * @param seed         der Startwert
+	 * @return eine neue GameMap-Instanz
+	 * @throws IllegalStateException wenn die erzeugte Karte nicht zusammenhängend
+	 *                               ist
+	 */
+	public static GameMap generateRandomMap(int width, int height, int scale, int castleCount, int kingdomCount,
+			EdgeMode edgeMode, long seed) {
 
 		width = Math.max(width, 15);
 		height = Math.max(height, 10);
@@ -217,22 +512,66 @@ public class GameMap {
 		if (scale <= 0 || castleCount <= 0)
 			throw new IllegalArgumentException();
 
-		System.out.println(String.format("Generating new map, castles=%d, width=%d, height=%d, kingdoms=%d",
-				castleCount, width, height, kingdomCount));
-		GameMap gameMap = new GameMap(width, height, scale);
+		System.out.println(String.format("Generating new map, castles=%d, width=%d, height=%d, kingdoms=%d, seed=%d",
+				castleCount, width, height, kingdomCount, seed));
+		GameMap gameMap = new GameMap(width, height, scale, seed);
+		GenerationReport report = gameMap.generationReport = new GenerationReport();
+
+		// Only sets up the noise, the tiles of the background are rendered when they are first shown
 		gameMap.generateBackground();
-		gameMap.generateCastles(castleCount);
-		gameMap.generateEdges();
-		gameMap.generateKingdoms(kingdomCount);
 
-		if (!gameMap.getGraph().allNodesConnected()) {
-			System.out.println("Fehler bei der Verifikation: Es sind nicht alle Knoten miteinander verbunden!");
-			return null;
+		checkInterrupted();
+		GenerationReport.Stage stage = report.begin("generateCastles");
+		gameMap.generateCastles(castleCount);
+		report.end(stage).addCount("castles", gameMap.getCastles().size()).addCount("requested", castleCount);
+
+		checkInterrupted();
+		stage = report.begin("generateEdges");
+		gameMap.generateEdges(edgeMode);
+		report.end(stage).addCount("edges", gameMap.getEdges().size());
+
+		checkInterrupted();
+		stage = report.begin("connectComponents");
+		int addedEdges = gameMap.connectComponents();
+		report.end(stage).addCount("edges", addedEdges);
+
+		checkInterrupted();
+		stage = report.begin("generateKingdoms");
+		Clustering clustering = gameMap.generateKingdoms(kingdomCount);
+		report.end(stage).addCount("kingdoms", gameMap.getKingdoms().size());
+
+		// Region growing does not move centers, it has no iterations or distance evaluations to report
+		if (clustering != null && GameConstants.MAP_CLUSTERING_MODE != ClusteringMode.REGION_GROWING)
+			stage.addCount("iterations", clustering.getIterations())
+					.addCount("distances", clustering.getDistanceEvaluations());
+
+		checkInterrupted();
+		stage = report.begin("allNodesConnected");
+		boolean connected = gameMap.getGraph().allNodesConnected();
+		report.end(stage).addCount("connected", connected ? 1 : 0);
+
+		if (GameConstants.DEBUG_TIMINGS) {
+			System.out.println(report);
+			if (report.getTotalNanos() > GameConstants.MAP_GENERATION_BUDGET_MILLIS * 1_000_000L)
+				System.out.println(String.format("Warnung: Die Generierung hat länger als %d ms gedauert",
+						GameConstants.MAP_GENERATION_BUDGET_MILLIS));
 		}
 
+		if (!connected)
+			throw new IllegalStateException("Fehler bei der Verifikation: Es sind nicht alle Knoten miteinander verbunden!");
+
 		return gameMap;
 	}
 
+	/**
+	 * Bricht die Generierung ab, wenn der Thread unterbrochen wurde, z.B. weil
+	 * vorbereitete Karten verworfen werden, siehe {@link game.MapPool#invalidate()}
+	 */
+	private static void checkInterrupted() {
+		if (Thread.currentThread().isInterrupted())
+			throw new CancellationException("Die Generierung der Karte wurde abgebrochen");
+	}
+
 	/**
 	 * Generiert eine Liste von Zufallsnamen für Burgen. Dabei wird ein Prefix
 	 * (Schloss, Burg oder Festung) an einen vorhandenen Namen aus den Resourcen
@@ -246,23 +585,111 @@ public class GameMap {
 		List<String> nameList = new ArrayList<>(names.size());
 
 		for (String name : names) {
-			String prefix = prefixes[(int) (Math.random() * prefixes.length)];
+			String prefix = prefixes[namesRandom.nextInt(prefixes.length)];
 			nameList.add(prefix + " " + name);
 		}
 
 		return nameList;
 	}
 
+	/**
+	 * Gibt den Startwert zurück, aus dem die Karte generiert wurde
+	 * 
+	 * @return der Startwert
+	 */
+	public long getSeed() {
+		return this.seed;
+	}
+
+	/**
+	 * Gibt die Messwerte der Generierung zurück
+	 * 
+	 * @return die Messwerte oder null, falls die Karte nicht generiert, sondern
+	 *         geladen wurde
+	 */
+	public GenerationReport getGenerationReport() {
+		return this.generationReport;
+	}
+
+	/**
+	 * Schreibt die Geländeart eines rechteckigen Bereichs zeilenweise in das
+	 * angegebene Array, siehe {@link #terrainClass(double)}. Die Methode darf aus
+	 * mehreren Threads gleichzeitig aufgerufen werden.
+	 * 
+	 * @param x      die x-Koordinate des ersten Pixels
+	 * @param y      die y-Koordinate des ersten Pixels
+	 * @param w      die Breite des Bereichs
+	 * @param h      die Höhe des Bereichs
+	 * @param target das Array für die Geländearten, mindestens w*h Einträge
+	 */
+	void getTerrainClasses(int x, int y, int w, int h, byte[] target) {
+		if (noise != null) {
+			double[] values = new double[w * h];
+			noise.getNoiseTile(x, y, w, h, values);
+			for (int i = 0; i < w * h; i++)
+				target[i] = (byte) terrainClass(values[i]);
+		} else {
+			byte[] terrain = getTerrain();
+			for (int row = 0; row < h; row++)
+				System.arraycopy(terrain, (y + row) * getWidth() + x, target, row * w, w);
+		}
+	}
+
+	private synchronized byte[] getTerrain() {
+		if (terrain == null)
+			terrain = terrainLoader.get();
+
+		return terrain;
+	}
+
+	/**
+	 * Setzt das Gelände einer geladenen Karte. Das Hintergrundbild wird erst bei
+	 * Bedarf daraus erzeugt.
+	 * 
+	 * @param terrainLoader liefert die Geländeart pro Pixel, zeilenweise
+	 */
+	synchronized void setTerrain(Supplier<byte[]> terrainLoader) {
+		this.terrainLoader = terrainLoader;
+		this.terrain = null;
+		this.noise = null;
+		this.backgroundTiles = null;
+	}
+
+	void setKingdoms(List<Kingdom> kingdoms) {
+		this.kingdoms = kingdoms;
+	}
+
+	int getScale() {
+		return this.scale;
+	}
+
+	int getCellsX() {
+		return this.width;
+	}
+
+	int getCellsY() {
+		return this.height;
+	}
+
 	public int getWidth() {
-		return this.backgroundImage.getWidth();
+		return this.width * this.scale;
 	}
 
 	public int getHeight() {
-		return this.backgroundImage.getHeight();
+		return this.height * this.scale;
 	}
 
-	public BufferedImage getBackgroundImage() {
-		return this.backgroundImage;
+	/**
+	 * Gibt die Kacheln des Hintergrundbilds zurück, diese werden bei Bedarf im
+	 * Hintergrund erzeugt
+	 * 
+	 * @return die Kacheln des Hintergrundbilds
+	 */
+	public synchronized BackgroundTiles getBackgroundTiles() {
+		if (backgroundTiles == null)
+			backgroundTiles = new BackgroundTiles(this);
+
+		return this.backgroundTiles;
 	}
 
 	public Dimension getSize() {
@@ -0,0 +1,152 @@
+package game.map;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Diese Klasse sammelt Messwerte der einzelnen Schritte von
+ * {@link GameMap#generateRandomMap(int, int, int, int, int)}.
+ * Für jeden Schritt werden die benötigte Zeit, der im generierenden Thread allokierte Speicher
+ * und beliebige Kennzahlen (z.B. die Anzahl der erzeugten Kanten) festgehalten.
+ * Speicher, der von anderen Threads (z.B. parallelen Streams) allokiert wird, ist nicht enthalten.
+ */
+public class GenerationReport {
+
+    /**
+     * Die Messwerte eines einzelnen Schritts
+     */
+    public static class Stage {
+
+        private final String name;
+        private final long startNanos, startBytes;
+        private long nanos, allocatedBytes;
+        private final Map<String, Long> counts;
+
+        private Stage(String name) {
+            this.name = name;
+            this.counts = new LinkedHashMap<>();
+            this.startBytes = currentThreadAllocatedBytes();
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Fügt eine Kennzahl hinzu
+         * @param key der Name der Kennzahl
+         * @param value der Wert
+         * @return der Schritt selbst
+         */
+        Stage addCount(String key, long value) {
+            counts.put(key, value);
+            return this;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Gibt den im generierenden Thread allokierten Speicher zurück
+         * @return die Anzahl der allokierten Bytes oder -1, falls die JVM diese Messung nicht unterstützt
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public Map<String, Long> getCounts() {
+            return Collections.unmodifiableMap(counts);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            text.append(String.format("%-20s %9.2f ms", name, nanos / 1e6));
+            if (allocatedBytes >= 0)
+                text.append(String.format(" %9.1f MB", allocatedBytes / (1024.0 * 1024.0)));
+
+            for (Map.Entry<String, Long> count : counts.entrySet())
+                text.append(' ').append(count.getKey()).append('=').append(count.getValue());
+
+            return text.toString();
+        }
+    }
+
+    private final List<Stage> stages;
+
+    GenerationReport() {
+        this.stages = new ArrayList<>();
+    }
+
+    /**
+     * Beginnt die Messung eines neuen Schritts
+     * @param name der Name des Schritts
+     * @return der begonnene Schritt, dieser muss mit {@link #end(Stage)} beendet werden
+     */
+    Stage begin(String name) {
+        return new Stage(name);
+    }
+
+    /**
+     * Beendet die Messung eines Schritts und fügt ihn dem Bericht hinzu
+     * @param stage der beendete Schritt
+     * @return der Schritt selbst
+     */
+    Stage end(Stage stage) {
+        stage.nanos = System.nanoTime() - stage.startNanos;
+        long bytes = currentThreadAllocatedBytes();
+        stage.allocatedBytes = (bytes < 0 || stage.startBytes < 0) ? -1 : bytes - stage.startBytes;
+        stages.add(stage);
+        return stage;
+    }
+
+    public List<Stage> getStages() {
+        return Collections.unmodifiableList(stages);
+    }
+
+    /**
+     * Sucht einen Schritt anhand seines Namens
+     * @param name der Name des Schritts
+     * @return der Schritt oder null, falls es keinen Schritt mit diesem Namen gibt
+     */
+    public Stage getStage(String name) {
+        for (Stage stage : stages) {
+            if (stage.getName().equals(name))
+                return stage;
+        }
+
+        return null;
+    }
+
+    public long getTotalNanos() {
+        return stages.stream().mapToLong(Stage::getNanos).sum();
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled())
+                return sunBean.getCurrentThreadAllocatedBytes();
+        }
+
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (Stage stage : stages)
+            text.append(stage).append('\n');
+
+        text.append(String.format("%-20s %9.2f ms", "total", getTotalNanos() / 1e6));
+        return text.toString();
+    }
+}
@@ -2,8 +2,10 @@ package game.map;
 
 import game.Player;
 
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Diese Klasse representiert ein Königreich. Jedes Königreich hat eine Liste von Burgen sowie einen Index {@link #type} im Bereich von 0-5
@@ -14,6 +16,11 @@ public class Kingdom {
     private List<Castle> castles;
     private int type;
 
+    // Number of castles per player and the player owning all castles, updated by Castle#setOwner
+    private final Map<Player, Integer> ownedCastles;
+    private Player owner;
+    private final List<KingdomListener> kingdomListeners;
+
     /**
      * Erstellt ein neues Königreich
      * @param type der Typ des Königreichs (im Bereich 0-5)
@@ -21,6 +28,9 @@ public class Kingdom {
     public Kingdom(int type) {
         this.castles = new LinkedList<>();
         this.type = type;
+        this.ownedCastles = new HashMap<>();
+        this.owner = null;
+        this.kingdomListeners = new LinkedList<>();
     }
 
     /**
@@ -29,6 +39,7 @@ public class Kingdom {
      */
     public void addCastle(Castle castle) {
         this.castles.add(castle);
+        ownerChanged(null, castle.getOwner());
     }
 
     /**
@@ -44,7 +55,41 @@ public class Kingdom {
      * @param castle die zu entfernende Burg
      */
     public void removeCastle(Castle castle) {
-        this.castles.remove(castle);
+        if(this.castles.remove(castle))
+            ownerChanged(castle.getOwner(), null);
+    }
+
+    /**
+     * Fügt einen Listener hinzu, der bei jedem Wechsel des Besitzers benachrichtigt wird
+     * @param kingdomListener der Listener
+     */
+    public void addKingdomListener(KingdomListener kingdomListener) {
+        this.kingdomListeners.add(kingdomListener);
+    }
+
+    /**
+     * Eine Burg des Königreichs hat den Besitzer gewechselt. Passt die Anzahl der Burgen pro Spieler an
+     * und benachrichtigt die Listener, falls sich dadurch der Besitzer des Königreichs ändert.
+     * @param oldOwner der bisherige Besitzer der Burg oder null
+     * @param newOwner der neue Besitzer der Burg oder null
+     */
+    void ownerChanged(Player oldOwner, Player newOwner) {
+        if(oldOwner != null)
+            ownedCastles.computeIfPresent(oldOwner, (player, count) -> count > 1 ? count - 1 : null);
+        if(newOwner != null)
+            ownedCastles.merge(newOwner, 1, Integer::sum);
+
+        // Only a player owning every castle is the owner, in which case no other player has a castle
+        Player previous = this.owner;
+        this.owner = null;
+        if(ownedCastles.size() == 1) {
+            Map.Entry<Player, Integer> entry = ownedCastles.entrySet().iterator().next();
+            if(entry.getValue() == castles.size())
+                this.owner = entry.getKey();
+        }
+
+        if(previous != this.owner)
+            kingdomListeners.forEach(l -> l.onKingdomOwnerChanged(this, previous, this.owner));
     }
 
     /**
@@ -53,16 +98,16 @@ public class Kingdom {
      * @return der Besitzer oder null
      */
     public Player getOwner() {
-        if(castles.isEmpty())
-            return null;
-
-        Player owner = castles.get(0).getOwner();
-        for(Castle castle : castles) {
-            if(castle.getOwner() != owner)
-                return null;
-        }
+        return this.owner;
+    }
 
-        return owner;
+    /**
+     * Gibt die Anzahl der Burgen in diesem Königreich zurück, die dem angegebenen Spieler gehören
+     * @param player der Spieler
+     * @return die Anzahl der Burgen
+     */
+    public int getCastleCount(Player player) {
+        return this.ownedCastles.getOrDefault(player, 0);
     }
 
     /**
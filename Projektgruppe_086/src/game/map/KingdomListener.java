@@ -0,0 +1,18 @@
+package game.map;
+
+import game.Player;
+
+/**
+ * Wird benachrichtigt, sobald ein Spieler die Kontrolle über ein Königreich erlangt oder verliert.
+ * Siehe auch {@link Kingdom#addKingdomListener(KingdomListener)}
+ */
+public interface KingdomListener {
+
+    /**
+     * Der Besitzer des Königreichs hat sich geändert
+     * @param kingdom das Königreich
+     * @param oldOwner der bisherige Besitzer oder null
+     * @param newOwner der neue Besitzer oder null
+     */
+    void onKingdomOwnerChanged(Kingdom kingdom, Player oldOwner, Player newOwner);
+}
@@ -0,0 +1,290 @@
+package game.map;
+
+import base.Edge;
+import base.Node;
+
+import java.awt.*;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Diese Klasse speichert Karten in einem kompakten Binärformat und lädt sie wieder.
+ * Gespeichert werden die Burgen mit Namen und Königreich, die Königreiche, die Kanten sowie das Gelände.
+ * Das Gelände wird als Geländeart pro Pixel abgelegt und lauflängenkodiert, siehe {@link GameMap#terrainClass(double)}.
+ * <p>
+ * Beim Laden wird die Datei mit {@link FileChannel#map(FileChannel.MapMode, long, long)} eingeblendet,
+ * das Hintergrundbild wird erst erzeugt, wenn es das erste Mal benötigt wird. Die Lauflängen werden aber
+ * schon beim Laden geprüft, sodass beschädigte Dateien nicht erst beim Zeichnen auffallen.
+ * <p>
+ * Aufbau der Datei (alle Zahlen big-endian):
+ * <pre>
+ * int    MAGIC
+ * short  VERSION
+ * int    Breite, Höhe (in Feldern), Skalierung
+ * long   Startwert
+ * int    Anzahl Königreiche, je Königreich: int Typ
+ * int    Anzahl Burgen, je Burg: int x, int y, int Königreich (-1 = keins), int Länge, UTF-8 Name
+ * int    Anzahl Kanten, je Kante: int Burg A, int Burg B
+ * int    Anzahl Läufe, je Lauf: byte Geländeart, varint Länge
+ * </pre>
+ */
+public class MapFile {
+
+    public static final String FILE_EXTENSION = ".map";
+
+    private static final int MAGIC = 0x47434D50; // "GCMP"
+    private static final short VERSION = 1;
+
+    // Bytes per entry in the file, a castle has at least its position, kingdom and name length
+    private static final int KINGDOM_BYTES = 4;
+    private static final int MIN_CASTLE_BYTES = 16;
+    private static final int EDGE_BYTES = 8;
+
+    private MapFile() {}
+
+    /**
+     * Speichert die Karte in der angegebenen Datei
+     * @param gameMap die zu speichernde Karte
+     * @param path die Zieldatei
+     * @throws IOException Eine IOException wird geworfen, wenn Probleme beim Schreiben auftreten
+     */
+    public static void write(GameMap gameMap, Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(gameMap.getCellsX());
+            out.writeInt(gameMap.getCellsY());
+            out.writeInt(gameMap.getScale());
+            out.writeLong(gameMap.getSeed());
+
+            // Kingdoms
+            List<Kingdom> kingdoms = gameMap.getKingdoms() == null ? new ArrayList<>() : gameMap.getKingdoms();
+            Map<Kingdom, Integer> kingdomIndices = new HashMap<>();
+            out.writeInt(kingdoms.size());
+            for (Kingdom kingdom : kingdoms) {
+                kingdomIndices.put(kingdom, kingdomIndices.size());
+                out.writeInt(kingdom.getType());
+            }
+
+            // Castles
+            List<Node<Castle>> nodes = gameMap.getGraph().getNodes();
+            Map<Node<Castle>, Integer> nodeIndices = new HashMap<>();
+            out.writeInt(nodes.size());
+            for (Node<Castle> node : nodes) {
+                Castle castle = node.getValue();
+                nodeIndices.put(node, nodeIndices.size());
+                out.writeInt(castle.getLocationOnMap().x);
+                out.writeInt(castle.getLocationOnMap().y);
+                out.writeInt(castle.getKingdom() == null ? -1 : kingdomIndices.getOrDefault(castle.getKingdom(), -1));
+
+                byte[] name = castle.getName().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(name.length);
+                out.write(name);
+            }
+
+            // Edges
+            List<Edge<Castle>> edges = gameMap.getEdges();
+            out.writeInt(edges.size());
+            for (Edge<Castle> edge : edges) {
+                out.writeInt(nodeIndices.get(edge.getNodeA()));
+                out.writeInt(nodeIndices.get(edge.getNodeB()));
+            }
+
+            writeTerrain(gameMap, out);
+        }
+    }
+
+    private static void writeTerrain(GameMap gameMap, DataOutputStream out) throws IOException {
+        int width = gameMap.getWidth();
+        int height = gameMap.getHeight();
+
+        // Encode into memory first, so that the number of runs can be written in front of them
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream runOut = new DataOutputStream(bytes);
+        byte[] row = new byte[width];
+        int runs = 0;
+        int current = -1;
+        int length = 0;
+        for (int y = 0; y < height; y++) {
+            gameMap.getTerrainClasses(0, y, width, 1, row);
+            for (int x = 0; x < width; x++) {
+                if (row[x] != current) {
+                    if (length > 0) {
+                        runOut.writeByte(current);
+                        writeVarInt(runOut, length);
+                        runs++;
+                    }
+                    current = row[x];
+                    length = 0;
+                }
+                length++;
+            }
+        }
+
+        runOut.writeByte(current);
+        writeVarInt(runOut, length);
+        runs++;
+
+        out.writeInt(runs);
+        bytes.writeTo(out);
+    }
+
+    /**
+     * Lädt eine Karte aus der angegebenen Datei
+     * @param path die zu ladende Datei
+     * @return die geladene Karte
+     * @throws IOException Eine IOException wird geworfen, wenn die Datei nicht gelesen werden kann oder ungültig ist
+     */
+    public static GameMap read(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        try {
+            if (buffer.getInt() != MAGIC)
+                throw new IOException("Keine gültige Kartendatei: " + path);
+
+            short version = buffer.getShort();
+            if (version != VERSION)
+                throw new IOException("Nicht unterstützte Version der Kartendatei: " + version);
+
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            int scale = buffer.getInt();
+            long seed = buffer.getLong();
+            if (width <= 0 || height <= 0 || scale <= 0 || (long) width * scale * height * scale > Integer.MAX_VALUE)
+                throw new IOException("Ungültige Kartengröße");
+
+            GameMap gameMap = new GameMap(width, height, scale, seed);
+
+            // Kingdoms
+            int kingdomCount = buffer.getInt();
+            checkCount(buffer, kingdomCount, KINGDOM_BYTES, "Königreichen");
+            List<Kingdom> kingdoms = new ArrayList<>(kingdomCount);
+            for (int i = 0; i < kingdomCount; i++)
+                kingdoms.add(new Kingdom(buffer.getInt()));
+
+            gameMap.setKingdoms(kingdoms);
+
+            // Castles
+            int castleCount = buffer.getInt();
+            checkCount(buffer, castleCount, MIN_CASTLE_BYTES, "Burgen");
+            List<Node<Castle>> nodes = new ArrayList<>(castleCount);
+            for (int i = 0; i < castleCount; i++) {
+                int x = buffer.getInt();
+                int y = buffer.getInt();
+                int kingdom = buffer.getInt();
+                int nameLength = buffer.getInt();
+                checkCount(buffer, nameLength, 1, "Zeichen im Namen einer Burg");
+                byte[] name = new byte[nameLength];
+                buffer.get(name);
+
+                Castle castle = new Castle(new Point(x, y), new String(name, StandardCharsets.UTF_8));
+                if (kingdom >= 0)
+                    castle.setKingdom(kingdoms.get(kingdom));
+
+                nodes.add(gameMap.getGraph().addNode(castle));
+            }
+
+            // Edges, they were unique when the map was saved
+            int edgeCount = buffer.getInt();
+            checkCount(buffer, edgeCount, EDGE_BYTES, "Kanten");
+            for (int i = 0; i < edgeCount; i++) {
+                Node<Castle> nodeA = nodes.get(buffer.getInt());
+                Node<Castle> nodeB = nodes.get(buffer.getInt());
+                gameMap.getGraph().addNewEdge(nodeA, nodeB);
+            }
+
+            // Terrain is decoded on first use, but checked now
+            ByteBuffer terrain = buffer.slice();
+            int pixels = gameMap.getWidth() * gameMap.getHeight();
+            checkTerrain(terrain.duplicate(), pixels);
+            gameMap.setTerrain(() -> readTerrain(terrain.duplicate(), pixels));
+            return gameMap;
+        } catch (RuntimeException ex) {
+            throw new IOException("Beschädigte Kartendatei: " + path, ex);
+        }
+    }
+
+    // Counts are checked against the remaining bytes before anything is allocated for them
+    private static void checkCount(ByteBuffer buffer, int count, int bytesPerEntry, String entries) throws IOException {
+        if (count < 0 || (long) count * bytesPerEntry > buffer.remaining())
+            throw new IOException("Ungültige Anzahl von " + entries + ": " + count);
+    }
+
+    // Runs have to cover every pixel exactly once and only use known terrain classes
+    private static void checkTerrain(ByteBuffer buffer, int pixels) throws IOException {
+        int runs = buffer.getInt();
+        if (runs <= 0 || runs > pixels)
+            throw new IOException("Ungültige Anzahl von Geländeabschnitten: " + runs);
+
+        int position = 0;
+        for (int i = 0; i < runs; i++) {
+            byte terrainClass = buffer.get();
+            if (terrainClass < 0 || terrainClass >= GameMap.TERRAIN_COLORS.length)
+                throw new IOException("Ungültige Geländeart: " + terrainClass);
+
+            int length = readVarInt(buffer);
+            if (length <= 0 || length > pixels - position)
+                throw new IOException("Ungültige Länge eines Geländeabschnitts: " + length);
+
+            position += length;
+        }
+
+        if (position != pixels)
+            throw new IOException(String.format("Das Gelände umfasst %d statt %d Pixel", position, pixels));
+    }
+
+    private static byte[] readTerrain(ByteBuffer buffer, int pixels) {
+        byte[] terrain = new byte[pixels];
+        int runs = buffer.getInt();
+        int position = 0;
+        for (int i = 0; i < runs; i++) {
+            byte terrainClass = buffer.get();
+            int length = readVarInt(buffer);
+            int end = Math.min(pixels, position + length);
+            for (; position < end; position++)
+                terrain[position] = terrainClass;
+        }
+
+        return terrain;
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift > 28)
+                throw new IllegalArgumentException("Zahl zu lang");
+
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+
+        return value;
+    }
+}
@@ -6,13 +6,33 @@ import java.util.stream.Collectors;
 
 public enum MapSize {
 
-    SMALL("Klein"),
-    MEDIUM("Mittel"),
-    LARGE("Groß");
+    SMALL("Klein", 1),
+    MEDIUM("Mittel", 2),
+    LARGE("Groß", 3),
+    HUGE("Riesig", 40),
+    CUSTOM("Benutzerdefiniert", 0);
 
     private String label;
-    MapSize(String lbl) {
+    private int multiplier;
+    MapSize(String lbl, int multiplier) {
         this.label = lbl;
+        this.multiplier = multiplier;
+    }
+
+    /**
+     * Gibt an, wie viele Burgen pro Spieler generiert werden, siehe {@link game.GameConstants#CASTLES_NUMBER_MULTIPLIER}
+     * @return der Faktor für die Anzahl der Burgen
+     */
+    public int getMultiplier() {
+        return this.multiplier;
+    }
+
+    /**
+     * Gibt an, ob die Anzahl der Burgen vom Spieler festgelegt wird
+     * @return true, wenn die Anzahl der Burgen frei wählbar ist
+     */
+    public boolean isCustom() {
+        return this == CUSTOM;
     }
 
     @Override
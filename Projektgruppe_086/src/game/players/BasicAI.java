@@ -2,7 +2,9 @@ package game.players;
 
 import java.awt.Color;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import base.Edge;
@@ -10,6 +12,7 @@ import base.Graph;
 import base.Node;
 import game.AI;
 import game.Game;
+import game.GameConstants;
 import game.map.Castle;
 import gui.AttackThread;
 
@@ -57,9 +60,11 @@ public class BasicAI extends AI {
                 }
             }
 
+            // Keep the delays of large maps with many troops within the budget of a turn
+            int troopDelay = (int) Math.min(500, GameConstants.AI_TURN_BUDGET_MILLIS / Math.max(1, this.getRemainingTroops()));
             while(this.getRemainingTroops() > 0) {
                 Castle fewestTroops = getCastleWithFewestTroops(castleNearEnemy);
-                sleep(500);
+                sleep(troopDelay);
                 game.addTroops(this, fewestTroops, 1);
             }
 
@@ -67,8 +72,9 @@ public class BasicAI extends AI {
 
             do {
                 // 2. Move troops from inside to border
+                Set<Castle> border = new HashSet<>(castleNearEnemy);
                 for (Castle castle : this.getCastles(game)) {
-                    if (!castleNearEnemy.contains(castle) && castle.getTroopCount() > 1) {
+                    if (!border.contains(castle) && castle.getTroopCount() > 1) {
                         Castle fewestTroops = getCastleWithFewestTroops(castleNearEnemy);
                         game.moveTroops(castle, fewestTroops, castle.getTroopCount() - 1);
                     }
@@ -4,7 +4,13 @@ import java.awt.*;
 import java.awt.event.*;
 import java.awt.geom.Line2D;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.swing.*;
 import javax.swing.border.LineBorder;
@@ -12,6 +18,8 @@ import javax.swing.border.LineBorder;
 import base.Edge;
 import game.AI;
 import game.Game;
+import game.GameConstants;
+import game.map.BackgroundTiles;
 import game.map.PathFinding;
 import game.Player;
 import game.map.Castle;
@@ -45,6 +53,9 @@ public class MapPanel extends JScrollPane {
     private List<Edge<Castle>> highlightedEdges;
     private Castle targetCastle;
 
+    // Castles by their position, each bucket covers CASTLE_SIZE x CASTLE_SIZE pixels
+    private Map<Point, List<Castle>> castleBuckets;
+
     public MapPanel(GameView gameView, Resources resources) {
         super();
         this.gameView = gameView;
@@ -72,17 +83,46 @@ public class MapPanel extends JScrollPane {
             }
         });
         this.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "Escape");
+
+        this.getActionMap().put("Undo", new AbstractAction("Undo") {
+            @Override
+            public void actionPerformed(ActionEvent actionEvent) {
+                if(game == null || game.isOver() || !game.canUndo())
+                    return;
+
+                game.undo();
+                reset();
+                gameView.updateStats();
+            }
+        });
+        this.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK), "Undo");
+
+        this.getActionMap().put("SaveMap", new AbstractAction("SaveMap") {
+            @Override
+            public void actionPerformed(ActionEvent actionEvent) {
+                if(game != null)
+                    gameView.saveMap();
+            }
+        });
+        this.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_S, InputEvent.CTRL_DOWN_MASK), "SaveMap");
     }
 
     private Castle getRegion(Point p) {
         if (map == null)
             return null;
 
-        for (Castle castle : map.getCastles()) {
-            Point location = castle.getLocationOnMap();
-            Rectangle rect = new Rectangle(location.x, location.y, CASTLE_SIZE, CASTLE_SIZE);
-            if (rect.contains(p))
-                return castle;
+        // A castle containing p starts at most CASTLE_SIZE pixels left of or above p
+        int bucketX = Math.floorDiv(p.x, CASTLE_SIZE);
+        int bucketY = Math.floorDiv(p.y, CASTLE_SIZE);
+        for (int x = bucketX - 1; x <= bucketX; x++) {
+            for (int y = bucketY - 1; y <= bucketY; y++) {
+                for (Castle castle : castleBuckets.getOrDefault(new Point(x, y), Collections.emptyList())) {
+                    Point location = castle.getLocationOnMap();
+                    Rectangle rect = new Rectangle(location.x, location.y, CASTLE_SIZE, CASTLE_SIZE);
+                    if (rect.contains(p))
+                        return castle;
+                }
+            }
         }
 
         return null;
@@ -189,8 +229,13 @@ public class MapPanel extends JScrollPane {
 
                     if(currentAction != Action.NONE) {
                         if(lastAction != currentAction) {
+                            long start = System.nanoTime();
                             pathFinding = new PathFinding(game.getMap().getGraph(), selectedCastle, currentAction, currentPlayer);
                             pathFinding.run();
+
+                            long millis = (System.nanoTime() - start) / 1_000_000;
+                            if(GameConstants.DEBUG_TIMINGS && millis > GameConstants.PATH_PREVIEW_BUDGET_MILLIS)
+                                System.out.println(String.format("Warnung: Die Wegberechnung hat %d ms gedauert", millis));
                         }
 
                         setCursor(Cursor.getPredefinedCursor(Cursor.CROSSHAIR_CURSOR));
@@ -206,7 +251,7 @@ public class MapPanel extends JScrollPane {
                     } else if(currentAction == Action.MOVING && pathFinding.getPath(nextCastle) != null) {
                         NumberDialog nd = new NumberDialog("Wie viele Truppen möchtest du verschieben?", 1, selectedCastle.getTroopCount() - 1, 1);
                         if(nd.showDialog(MapPanel.this)) {
-                            selectedCastle.moveTroops(nextCastle, nd.getValue());
+                            game.moveTroops(selectedCastle, nextCastle, nd.getValue());
                             currentAction = Action.NONE;
                             selectedCastle = null;
                             highlightedEdges = null;
@@ -343,11 +388,11 @@ public class MapPanel extends JScrollPane {
         int offsetX = 0;
         int offsetY = 0;
 
-        if (getSize().getWidth() > map.getBackgroundImage().getWidth())
-            offsetX = (int) ((getSize().getWidth() - map.getBackgroundImage().getWidth()) / 2);
+        if (getSize().getWidth() > map.getWidth())
+            offsetX = (int) ((getSize().getWidth() - map.getWidth()) / 2);
 
-        if (getSize().getHeight() > map.getBackgroundImage().getHeight())
-            offsetY = (int) ((getSize().getHeight() - map.getBackgroundImage().getHeight()) / 2);
+        if (getSize().getHeight() > map.getHeight())
+            offsetY = (int) ((getSize().getHeight() - map.getHeight()) / 2);
 
         return new Point(p.x + offsetX, p.y + offsetY);
     }
@@ -356,11 +401,11 @@ public class MapPanel extends JScrollPane {
         int offsetX = 0;
         int offsetY = 0;
 
-        if (getSize().getWidth() > map.getBackgroundImage().getWidth())
-            offsetX = (int) ((getSize().getWidth() - map.getBackgroundImage().getWidth()) / 2);
+        if (getSize().getWidth() > map.getWidth())
+            offsetX = (int) ((getSize().getWidth() - map.getWidth()) / 2);
 
-        if (getSize().getHeight() > map.getBackgroundImage().getHeight())
-            offsetY = (int) ((getSize().getHeight() - map.getBackgroundImage().getHeight()) / 2);
+        if (getSize().getHeight() > map.getHeight())
+            offsetY = (int) ((getSize().getHeight() - map.getHeight()) / 2);
 
         JViewport jp = this.getViewport();
         return new Point(p.x - offsetX + jp.getViewPosition().x, p.y - offsetY + jp.getViewPosition().y);
@@ -369,12 +414,53 @@ public class MapPanel extends JScrollPane {
     public void setGame(Game game) {
         this.game = game;
         this.map = game.getMap();
+        this.castleBuckets = new HashMap<>();
+        for (Castle castle : map.getCastles()) {
+            Point location = castle.getLocationOnMap();
+            Point bucket = new Point(Math.floorDiv(location.x, CASTLE_SIZE), Math.floorDiv(location.y, CASTLE_SIZE));
+            castleBuckets.computeIfAbsent(bucket, b -> new ArrayList<>()).add(castle);
+        }
+
         this.imagePanel.setSize(map.getSize());
         this.repaint();
     }
 
     class ImagePanel extends JPanel {
 
+        // Only the tiles inside the visible area are drawn, missing tiles are generated in the background
+        private void paintBackground(Graphics g, Point offset) {
+            BackgroundTiles tiles = map.getBackgroundTiles();
+            Rectangle clip = g.getClipBounds();
+            if (clip == null)
+                clip = new Rectangle(0, 0, getWidth(), getHeight());
+
+            int firstColumn = Math.max(0, (clip.x - offset.x) / BackgroundTiles.TILE_SIZE);
+            int firstRow = Math.max(0, (clip.y - offset.y) / BackgroundTiles.TILE_SIZE);
+            int lastColumn = Math.min(tiles.getColumns() - 1, (clip.x + clip.width - offset.x) / BackgroundTiles.TILE_SIZE);
+            int lastRow = Math.min(tiles.getRows() - 1, (clip.y + clip.height - offset.y) / BackgroundTiles.TILE_SIZE);
+
+            GameMap currentMap = map;
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    int x = offset.x + column * BackgroundTiles.TILE_SIZE;
+                    int y = offset.y + row * BackgroundTiles.TILE_SIZE;
+                    BufferedImage tile = tiles.getTile(column, row, () -> SwingUtilities.invokeLater(() -> {
+                        if (map == currentMap)
+                            repaint(x, y, BackgroundTiles.TILE_SIZE, BackgroundTiles.TILE_SIZE);
+                    }));
+
+                    if (tile != null) {
+                        g.drawImage(tile, x, y, null);
+                    } else {
+                        int width = Math.min(BackgroundTiles.TILE_SIZE, map.getWidth() - column * BackgroundTiles.TILE_SIZE);
+                        int height = Math.min(BackgroundTiles.TILE_SIZE, map.getHeight() - row * BackgroundTiles.TILE_SIZE);
+                        g.setColor(Color.DARK_GRAY);
+                        g.fillRect(x, y, width, height);
+                    }
+                }
+            }
+        }
+
         @Override
         public Dimension getPreferredSize() {
             return map != null ? map.getSize() : new Dimension();
@@ -387,14 +473,23 @@ public class MapPanel extends JScrollPane {
             Point offset = translate(new Point(0, 0));
 
             if (map != null) {
-                g.drawImage(map.getBackgroundImage(), offset.x, offset.y, null);
+                paintBackground(g, offset);
+
+                // Everything outside of the visible area is skipped
+                Rectangle clip = g.getClipBounds();
+                if (clip == null)
+                    clip = new Rectangle(0, 0, getWidth(), getHeight());
 
                 if (showConnections) {
+                    Set<Edge<Castle>> highlighted = highlightedEdges != null ? new HashSet<>(highlightedEdges) : Collections.emptySet();
                     for (Edge<Castle> edge : map.getEdges()) {
                         Point p1 = translate(edge.getNodeA().getValue().getLocationOnMap());
                         Point p2 = translate(edge.getNodeB().getValue().getLocationOnMap());
+                        Line2D line = new Line2D.Float(p1.x + CASTLE_SIZE / 2.0f, p1.y + CASTLE_SIZE / 2.0f, p2.x + CASTLE_SIZE / 2.0f, p2.y + CASTLE_SIZE / 2.0f);
+                        if (!line.intersects(clip.x - 2, clip.y - 2, clip.width + 4, clip.height + 4))
+                            continue;
 
-                        if(highlightedEdges != null && highlightedEdges.contains(edge)) {
+                        if(highlighted.contains(edge)) {
                             g2.setStroke(new BasicStroke(3));
                             g.setColor(Color.RED);
                         } else {
@@ -402,14 +497,19 @@ public class MapPanel extends JScrollPane {
                             g.setColor(Color.WHITE);
                         }
 
-                        g2.draw(new Line2D.Float(p1.x + CASTLE_SIZE / 2.0f, p1.y + CASTLE_SIZE / 2.0f, p2.x + CASTLE_SIZE / 2.0f, p2.y + CASTLE_SIZE / 2.0f));
+                        g2.draw(line);
                         g2.setStroke(new BasicStroke(1));
                     }
                 }
 
                 for (Castle region : map.getCastles()) {
-                    Color color = region.getOwner() == null ? Color.WHITE : region.getOwner().getColor();
                     Point location = translate(region.getLocationOnMap());
+
+                    // Castle with the troop count below it
+                    if (!clip.intersects(location.x - CASTLE_SIZE / 2, location.y, 2 * CASTLE_SIZE, 2 * CASTLE_SIZE))
+                        continue;
+
+                    Color color = region.getOwner() == null ? Color.WHITE : region.getOwner().getColor();
                     BufferedImage castle = resources.getCastle(color, region.getType());
                     g.drawImage(castle, location.x, location.y, null);
 
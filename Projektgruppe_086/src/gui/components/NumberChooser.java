@@ -12,13 +12,18 @@ import javax.swing.*;
 
 public class NumberChooser extends JComponent implements MouseListener {
 
-    private int min, max, value;
+    private int min, max, value, step;
     private boolean minClicked, maxClicked;
     private List<ValueListener> valueListeners;
 
     public NumberChooser(int min, int max, int val) {
+        this(min, max, val, 1);
+    }
+
+    public NumberChooser(int min, int max, int val, int step) {
         this.min = min;
         this.max = max;
+        this.step = step;
         this.setValue(val);
         this.valueListeners = new LinkedList<>();
         this.addMouseListener(this);
@@ -37,11 +42,11 @@ public class NumberChooser extends JComponent implements MouseListener {
     }
 
     public void decrement() {
-        this.setValue(this.getValue() - 1);
+        this.setValue(this.getValue() - step);
     }
 
     public void increment() {
-        this.setValue(this.getValue() + 1);
+        this.setValue(this.getValue() + step);
     }
 
     public void addValueListener(ValueListener valueListener) {
@@ -79,7 +84,7 @@ public class NumberChooser extends JComponent implements MouseListener {
         // Text
         Font font = View.createFont(16);
         FontMetrics fm = g.getFontMetrics(font);
-        g.setColor(Color.BLACK);
+        g.setColor(isEnabled() ? Color.BLACK : Color.GRAY);
         g.setFont(font);
 
         Dimension dim1 = View.calculateTextSize("-", font);
@@ -93,7 +98,7 @@ public class NumberChooser extends JComponent implements MouseListener {
 
     @Override
     public void mouseClicked(MouseEvent mouseEvent) {
-        if(mouseEvent.getButton() == MouseEvent.BUTTON1) {
+        if(mouseEvent.getButton() == MouseEvent.BUTTON1 && isEnabled()) {
             int x = mouseEvent.getX();
 
             if(x < getButtonWidth())
@@ -105,7 +110,7 @@ public class NumberChooser extends JComponent implements MouseListener {
 
     @Override
     public void mousePressed(MouseEvent mouseEvent) {
-        if(mouseEvent.getButton() == MouseEvent.BUTTON1) {
+        if(mouseEvent.getButton() == MouseEvent.BUTTON1 && isEnabled()) {
             int x = mouseEvent.getX();
             minClicked = x < getButtonWidth();
             maxClicked = x >= getWidth() - getButtonWidth();
@@ -1,6 +1,8 @@
 package gui.views;
 
 import game.*;
+import game.map.GameMap;
+import game.map.MapFile;
 import game.map.MapSize;
 import gui.GameWindow;
 import gui.View;
@@ -12,9 +14,13 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
 import java.awt.font.TextAttribute;
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
 
 public class GameMenu extends View {
 
@@ -26,9 +32,13 @@ public class GameMenu extends View {
 
     private NumberChooser playerCount;
     private JComboBox mapSize;
+    private NumberChooser castleCount;
     private JComboBox goal;
     private JComponent[][] playerConfig;
-    private JButton btnStart, btnBack;
+    private JButton btnStart, btnBack, btnLoad;
+
+    // Map loaded from a file, replaces the generated map while set
+    private GameMap loadedMap;
 
     // map size, type?
     // goal?
@@ -69,7 +79,10 @@ public class GameMenu extends View {
         offsetY = 125 - lblMapSize.getHeight();
         offsetX = (getWidth() - 2*columnWidth - 25) / 2 + columnWidth + 25 + (columnWidth - mapSize.getWidth()) / 2;
         lblMapSize.setLocation(offsetX, offsetY); offsetY += lblMapSize.getHeight();
-        mapSize.setLocation(offsetX, offsetY); offsetY += mapSize.getHeight() + 10;
+        mapSize.setLocation(offsetX, offsetY); offsetY += mapSize.getHeight() + 5;
+        castleCount.setLocation(offsetX, offsetY); offsetY += castleCount.getHeight() + 10;
+        mapSize.setEnabled(loadedMap == null);
+        castleCount.setEnabled(loadedMap == null && getSelectedMapSize() == MapSize.CUSTOM);
         lblGoal.setLocation(offsetX, offsetY); offsetY += lblGoal.getHeight();
         goal.setLocation(offsetX, offsetY); offsetY += goal.getHeight();
         lblGoalDescription.setLocation(offsetX, offsetY);
@@ -77,9 +90,10 @@ public class GameMenu extends View {
 
         // Button bar
         offsetY = this.getHeight() - BUTTON_SIZE.height - 25;
-        offsetX = (this.getWidth() - 2*BUTTON_SIZE.width - 25) / 2;
+        offsetX = (this.getWidth() - 3*BUTTON_SIZE.width - 50) / 2;
         btnBack.setLocation(offsetX, offsetY);
-        btnStart.setLocation(offsetX + BUTTON_SIZE.width + 25, offsetY);
+        btnLoad.setLocation(offsetX + BUTTON_SIZE.width + 25, offsetY);
+        btnStart.setLocation(offsetX + 2*(BUTTON_SIZE.width + 25), offsetY);
     }
 
     @Override
@@ -92,7 +106,10 @@ public class GameMenu extends View {
         lblPlayerCount = createLabel("Anzahl Spieler:", 16);
         playerCount = new NumberChooser(2, GameConstants.MAX_PLAYERS, 2);
         playerCount.setSize(125, 25);
-        playerCount.addValueListener((oldValue, newValue) -> onResize());
+        playerCount.addValueListener((oldValue, newValue) -> {
+            onResize();
+            prepareMaps();
+        });
         add(playerCount);
 
         // Player rows:
@@ -121,6 +138,17 @@ public class GameMenu extends View {
         // GameMap config
         lblMapSize = createLabel("Kartengröße", 16);
         mapSize = createCombobox(MapSize.getMapSizes(), MapSize.MEDIUM.ordinal());
+        mapSize.addItemListener(itemEvent -> {
+            onResize();
+            prepareMaps();
+        });
+
+        castleCount = new NumberChooser(GameConstants.CUSTOM_CASTLES_MIN, GameConstants.CUSTOM_CASTLES_MAX,
+                GameConstants.CUSTOM_CASTLES_DEFAULT, GameConstants.CUSTOM_CASTLES_STEP);
+        castleCount.setSize(mapSize.getWidth(), 25);
+        castleCount.setToolTipText("Anzahl der Burgen");
+        castleCount.addValueListener((oldValue, newValue) -> prepareMaps());
+        add(castleCount);
 
         // Goals
         Vector<String> goalNames = new Vector<>();
@@ -141,16 +169,107 @@ public class GameMenu extends View {
 
         // Buttons
         btnBack = createButton("Zurück");
+        btnLoad = createButton("Karte laden");
         btnStart = createButton("Starten");
 
         getWindow().setSize(750, 450);
         getWindow().setMinimumSize(new Dimension(750, 450));
+
+        prepareMaps();
+    }
+
+    // Start generating maps for the current settings in the background
+    private void prepareMaps() {
+        MapSize mapSize = getSelectedMapSize();
+        if(mapSize != null && loadedMap == null)
+            MapPool.getInstance().prepare(this.playerCount.getValue(), mapSize, mapSize.isCustom() ? castleCount.getValue() : 0);
+    }
+
+    private MapSize getSelectedMapSize() {
+        int mapSizeIndex = this.mapSize.getSelectedIndex();
+        if(mapSizeIndex < 0 || mapSizeIndex >= MapSize.values().length)
+            return null;
+
+        return MapSize.values()[mapSizeIndex];
+    }
+
+    // Loads a map saved with MapFile or discards the loaded one
+    private void toggleLoadedMap() {
+        if(loadedMap != null) {
+            loadedMap = null;
+            btnLoad.setText("Karte laden");
+            btnLoad.setToolTipText(null);
+            onResize();
+            prepareMaps();
+            return;
+        }
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("Karten (*" + MapFile.FILE_EXTENSION + ")", MapFile.FILE_EXTENSION.substring(1)));
+        if(chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION)
+            return;
+
+        File file = chooser.getSelectedFile();
+        try {
+            loadedMap = MapFile.read(file.toPath());
+        } catch(IOException ex) {
+            showErrorMessage("Die Karte konnte nicht geladen werden: " + ex.getMessage(), "Fehler beim Laden");
+            return;
+        }
+
+        MapPool.getInstance().invalidate();
+        btnLoad.setText("Karte verwerfen");
+        btnLoad.setToolTipText(file.getName());
+        onResize();
+    }
+
+    // Waiting for the map happens in the background, so that the menu stays responsive
+    private void startGame(Game game, GameView gameView) {
+        JButton[] buttons = { btnBack, btnLoad, btnStart };
+        for(JButton button : buttons)
+            button.setEnabled(false);
+
+        btnStart.setText("Bitte warten...");
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                game.generateMap();
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                setCursor(Cursor.getDefaultCursor());
+                btnStart.setText("Starten");
+                for(JButton button : buttons)
+                    button.setEnabled(true);
+
+                try {
+                    get();
+                    game.start(gameView);
+                    getWindow().setView(gameView);
+                } catch(InterruptedException | ExecutionException ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    showErrorMessage("Fehler beim Erstellen der Karte: " + cause.getMessage(), "Interner Fehler");
+                } catch(IllegalArgumentException ex) {
+                    ex.printStackTrace();
+                    showErrorMessage("Fehler beim Erstellen des Spiels: " + ex.getMessage(), "Interner Fehler");
+                }
+            }
+        }.execute();
     }
 
     @Override
     public void actionPerformed(ActionEvent actionEvent) {
-        if(actionEvent.getSource() == btnBack)
+        if(actionEvent.getSource() == btnBack) {
+            MapPool.getInstance().invalidate();
             getWindow().setView(new StartScreen(getWindow()));
+        }
+        else if(actionEvent.getSource() == btnLoad) {
+            toggleLoadedMap();
+        }
         else if(actionEvent.getSource() == btnStart) {
 
             try {
@@ -208,9 +327,10 @@ public class GameMenu extends View {
                 Goal goal = GameConstants.GAME_GOALS[goalIndex];
                 GameView gameView = new GameView(getWindow(), game);
                 game.setMapSize(MapSize.values()[mapSize]);
+                game.setCastleCount(castleCount.getValue());
+                game.setMap(loadedMap);
                 game.setGoal(goal);
-                game.start(gameView);
-                getWindow().setView(gameView);
+                startGame(game, gameView);
             } catch(IllegalArgumentException ex) {
                 ex.printStackTrace();
                 showErrorMessage("Fehler beim Erstellen des Spiels: " + ex.getMessage(), "Interner Fehler");
@@ -2,9 +2,12 @@ package gui.views;
 
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.io.File;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.*;
 import javax.swing.border.LineBorder;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.Style;
 import javax.swing.text.StyleConstants;
@@ -15,6 +18,8 @@ import game.Game;
 import game.GameInterface;
 import game.Player;
 import game.map.Castle;
+import game.map.Kingdom;
+import game.map.MapFile;
 import gui.GameWindow;
 import gui.View;
 import gui.components.DicePanel;
@@ -169,6 +174,41 @@ public class GameView extends View implements GameInterface {
         }
     }
 
+    /**
+     * Speichert die Karte des laufenden Spiels in einer vom Spieler gewählten Datei, siehe {@link MapFile}.
+     * Das Gelände großer Karten wird dabei erst berechnet, das Schreiben läuft daher im Hintergrund.
+     */
+    public void saveMap() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("Karten (*" + MapFile.FILE_EXTENSION + ")", MapFile.FILE_EXTENSION.substring(1)));
+        if(chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION)
+            return;
+
+        File file = chooser.getSelectedFile();
+        if(!file.getName().endsWith(MapFile.FILE_EXTENSION))
+            file = new File(file.getParentFile(), file.getName() + MapFile.FILE_EXTENSION);
+
+        File target = file;
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                MapFile.write(game.getMap(), target.toPath());
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    get();
+                    logLine("Karte gespeichert: " + target.getName());
+                } catch(InterruptedException | ExecutionException ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    showErrorMessage("Die Karte konnte nicht gespeichert werden: " + cause.getMessage(), "Fehler beim Speichern");
+                }
+            }
+        }.execute();
+    }
+
     private void logText(String text) {
         Style style = this.gameLog.getStyle("PlayerColor");
         StyleConstants.setForeground(style, Color.BLACK);
@@ -273,6 +313,14 @@ public class GameView extends View implements GameInterface {
         map.repaint();
     }
 
+    @Override
+    public void onKingdomOwnerChanged(Kingdom kingdom, Player oldOwner, Player newOwner) {
+        if(newOwner != null)
+            logLine("%PLAYER% kontrolliert jetzt ein Königreich.", newOwner);
+        else if(oldOwner != null)
+            logLine("%PLAYER% verliert die Kontrolle über ein Königreich.", oldOwner);
+    }
+
     @Override
     public void onUpdate() {
         updateStats();
@@ -0,0 +1,122 @@
+package tests.student;
+
+import base.Edge;
+import base.Graph;
+import base.Node;
+import game.map.Castle;
+import game.map.Clustering;
+import game.map.ClusteringMode;
+import game.map.EdgeMode;
+import game.map.GameMap;
+import game.map.Kingdom;
+import java.awt.Point;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+// tests für die Aufteilung der Burgen in Königreiche
+
+
+public class ClusteringTest {
+
+	private static final int CASTLES = 2000;
+	private static final int KINGDOMS = 6;
+
+	private static List<Castle> randomCastles(long seed) {
+		Random random = new Random(seed);
+		List<Castle> castles = new ArrayList<>();
+		for (int i = 0; i < CASTLES; i++)
+			castles.add(new Castle(new Point(random.nextInt(4000), random.nextInt(3000)), "Burg " + i));
+		return castles;
+	}
+
+	/**
+	 * Gibt für jede Burg den Index ihres Königreichs zurück
+	 */
+	private static int[] assignment(List<Castle> castles, List<Kingdom> kingdoms) {
+		int[] assignment = new int[castles.size()];
+		for (int i = 0; i < castles.size(); i++)
+			assignment[i] = kingdoms.indexOf(castles.get(i).getKingdom());
+		return assignment;
+	}
+
+	@Test
+	public void testHamerlyMatchesLloyd() {
+		for (long seed = 0; seed < 5; seed++) {
+			List<Castle> lloydCastles = randomCastles(seed);
+			Clustering lloyd = new Clustering(lloydCastles, KINGDOMS, new Random(seed));
+			lloyd.setMode(ClusteringMode.LLOYD);
+			int[] expected = assignment(lloydCastles, lloyd.getPointsClusters());
+
+			List<Castle> hamerlyCastles = randomCastles(seed);
+			Clustering hamerly = new Clustering(hamerlyCastles, KINGDOMS, new Random(seed));
+			hamerly.setMode(ClusteringMode.HAMERLY);
+			int[] actual = assignment(hamerlyCastles, hamerly.getPointsClusters());
+
+			assertArrayEquals(expected, actual);
+			assertEquals(lloyd.getIterations(), hamerly.getIterations());
+			assertTrue(hamerly.getDistanceEvaluations() < lloyd.getDistanceEvaluations());
+		}
+	}
+
+	@Test
+	public void testMiniBatchStopsEarly() {
+		List<Castle> castles = randomCastles(7);
+		Clustering clustering = new Clustering(castles, KINGDOMS, new Random(7));
+		clustering.setMode(ClusteringMode.MINI_BATCH);
+		List<Kingdom> kingdoms = clustering.getPointsClusters();
+
+		assertEquals(KINGDOMS, kingdoms.size());
+		assertTrue(clustering.getIterations() < 100);
+		for (Castle castle : castles)
+			assertNotNull(castle.getKingdom());
+	}
+
+	@Test
+	public void testRegionGrowingConnectedAndBalanced() {
+		for (long seed = 0; seed < 5; seed++) {
+			GameMap map = GameMap.generateRandomMap(60, 40, 40, 300, 3, EdgeMode.GABRIEL, seed);
+			Graph<Castle> graph = map.getGraph();
+			Clustering clustering = new Clustering(graph, KINGDOMS, new Random(seed));
+			clustering.setMode(ClusteringMode.REGION_GROWING);
+			List<Kingdom> kingdoms = clustering.getPointsClusters();
+			assertEquals(0, clustering.getIterations());
+
+			int castles = 0;
+			int min = Integer.MAX_VALUE;
+			int max = 0;
+			for (Kingdom kingdom : kingdoms) {
+				int size = kingdom.getCastles().size();
+				castles += size;
+				min = Math.min(min, size);
+				max = Math.max(max, size);
+				assertTrue("Königreich nicht zusammenhängend", connected(graph, kingdom));
+			}
+
+			assertEquals(map.getCastles().size(), castles);
+			assertTrue(min + " - " + max, max - min <= Math.max(2, castles / KINGDOMS / 10));
+		}
+	}
+
+	private static boolean connected(Graph<Castle> graph, Kingdom kingdom) {
+		Set<Castle> visited = new HashSet<>();
+		Deque<Castle> queue = new ArrayDeque<>();
+		queue.add(kingdom.getCastles().get(0));
+		visited.add(queue.peek());
+		while (!queue.isEmpty()) {
+			Node<Castle> node = graph.getNode(queue.poll());
+			for (Edge<Castle> edge : graph.getEdges(node)) {
+				Castle other = edge.getOtherNode(node).getValue();
+				if (other.getKingdom() == kingdom && visited.add(other))
+					queue.add(other);
+			}
+		}
+		return visited.size() == kingdom.getCastles().size();
+	}
+}
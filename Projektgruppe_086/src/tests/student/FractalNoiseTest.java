@@ -0,0 +1,64 @@
+package tests.student;
+
+import base.FractalNoise;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+// tests für das Rauschen mit mehreren Oktaven
+
+
+public class FractalNoiseTest {
+
+	private static final int SCALE = 40;
+	private static final long SEED = 12345L;
+	private static final double EPSILON = 1e-12;
+
+	private static FractalNoise createNoise(int width, int height) {
+		return new FractalNoise(width, height, SCALE, 4, 2.0, 0.5, SEED);
+	}
+
+	@Test
+	public void testTileMatchesSinglePixels() {
+		FractalNoise noise = createNoise(6, 4);
+		assertTrue(noise.getOctaves() > 1);
+
+		// Large enough to be split between threads
+		int w = 6 * SCALE - 3, h = 4 * SCALE - 1;
+		double[] tile = new double[w * h];
+		noise.getNoiseTile(3, 1, w, h, tile);
+		for (int row = 0; row < h; row++) {
+			for (int column = 0; column < w; column++)
+				assertEquals(noise.getNoise(3 + column, 1 + row), tile[row * w + column], EPSILON);
+		}
+	}
+
+	@Test
+	public void testRowMatchesSinglePixels() {
+		FractalNoise noise = createNoise(6, 4);
+		double[] row = new double[6 * SCALE];
+		noise.getNoiseRow(5, 77, 6 * SCALE - 5, row, 0);
+		for (int i = 0; i < 6 * SCALE - 5; i++)
+			assertEquals(noise.getNoise(5 + i, 77), row[i], EPSILON);
+	}
+
+	@Test
+	public void testCachedOctavesDoNotDependOnSize() {
+		// The second noise takes its low octaves from the cache, resized to another size
+		FractalNoise small = createNoise(6, 4);
+		FractalNoise large = createNoise(9, 7);
+		for (int y = 0; y < 4 * SCALE; y += 3) {
+			for (int x = 0; x < 6 * SCALE; x += 2)
+				assertEquals(small.getNoise(x, y), large.getNoise(x, y), 0);
+		}
+	}
+
+	@Test
+	public void testDifferentSeedDifferentNoise() {
+		FractalNoise first = createNoise(6, 4);
+		FractalNoise second = new FractalNoise(6, 4, SCALE, 4, 2.0, 0.5, SEED + 1);
+		boolean different = false;
+		for (int x = 0; x < 6 * SCALE && !different; x++)
+			different = first.getNoise(x, 50) != second.getNoise(x, 50);
+		assertTrue(different);
+	}
+}
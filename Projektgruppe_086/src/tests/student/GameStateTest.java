@@ -0,0 +1,352 @@
+package tests.student;
+
+import base.ChunkedIntArray;
+import base.Edge;
+import base.Graph;
+import base.Node;
+import game.Game;
+import game.GameConstants;
+import game.GameInterface;
+import game.GameSnapshot;
+import game.GameState;
+import game.Player;
+import game.goals.ConquerGoal;
+import game.map.Castle;
+import game.map.EdgeMode;
+import game.map.GameMap;
+import game.map.Kingdom;
+import game.players.Human;
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+// tests für Spielstände, Momentaufnahmen und das Rückgängigmachen von Zügen
+
+
+public class GameStateTest {
+
+	private static final long SEED = 4711L;
+
+	/**
+	 * Eine Oberfläche, die nur zählt, wie oft Besitzer von Königreichen gemeldet werden
+	 */
+	private static class CountingInterface implements GameInterface {
+		int kingdomOwnerChanges;
+
+		public void onAttackStopped() {}
+		public void onAttackStarted(Castle source, Castle target, int troopCount) {}
+		public void onCastleChosen(Castle castle, Player player) {}
+		public void onNextTurn(Player currentPlayer, int troopsGot, boolean human) {}
+		public void onNewRound(int round) {}
+		public void onGameOver(Player winner) {}
+		public void onGameStarted(Game game) {}
+		public void onConquer(Castle castle, Player player) {}
+		public void onUpdate() {}
+		public void onAddScore(Player player, int score) {}
+
+		public int[] onRoll(Player player, int dices, boolean fastForward) {
+			return new int[dices];
+		}
+
+		@Override
+		public void onKingdomOwnerChanged(Kingdom kingdom, Player oldOwner, Player newOwner) {
+			kingdomOwnerChanges++;
+		}
+	}
+
+	private Game game;
+	private CountingInterface gameInterface;
+	private Random random;
+
+	@Before
+	public void setUp() {
+		game = new Game();
+		game.addPlayer(Player.createPlayer(Human.class, "Spieler 1", Color.RED));
+		game.addPlayer(Player.createPlayer(Human.class, "Spieler 2", Color.BLUE));
+		game.setGoal(new ConquerGoal());
+
+		// More than one chunk of castles, see ChunkedIntArray#CHUNK_SIZE
+		game.setMap(GameMap.generateRandomMap(60, 40, 40, 300, 4, EdgeMode.GABRIEL, SEED));
+		gameInterface = new CountingInterface();
+		game.start(gameInterface);
+		random = new Random(SEED);
+
+		List<Castle> castles = game.getMap().getCastles();
+		while (game.getRound() == 1) {
+			Castle free = null;
+			for (Castle castle : castles) {
+				if (castle.getOwner() == null) {
+					free = castle;
+					break;
+				}
+			}
+			game.chooseCastle(free, game.getCurrentPlayer());
+		}
+	}
+
+	/**
+	 * Lässt eine zufällige Burg eine benachbarte Burg eines anderen Besitzers erobern
+	 */
+	private void randomConquest() {
+		Graph<Castle> graph = game.getMap().getGraph();
+		List<Castle> owned = new ArrayList<>();
+		for (Castle castle : game.getMap().getCastles()) {
+			if (castle.getOwner() != null)
+				owned.add(castle);
+		}
+
+		for (int tries = 0; tries < 100; tries++) {
+			Castle attacker = owned.get(random.nextInt(owned.size()));
+			Node<Castle> node = graph.getNode(attacker);
+			List<Edge<Castle>> edges = graph.getEdges(node);
+			Castle defender = edges.get(random.nextInt(edges.size())).getOtherNode(node).getValue();
+			if (defender.getOwner() != attacker.getOwner()) {
+				attacker.addTroops(2);
+				game.doAttack(attacker, defender, new int[] { 6, 6, 6 }, new int[] { 1, 1 });
+				return;
+			}
+		}
+	}
+
+	private void assertPlayerIndices() {
+		for (Player player : game.getPlayers()) {
+			List<Castle> expected = new ArrayList<>();
+			for (Castle castle : game.getMap().getCastles()) {
+				if (castle.getOwner() == player)
+					expected.add(castle);
+			}
+
+			assertEquals(expected.size(), player.getNumRegions(game));
+			assertEquals(new HashSet<>(expected), new HashSet<>(player.getCastles(game)));
+		}
+	}
+
+	private void assertKingdomCounters() {
+		for (Player player : game.getPlayers()) {
+			int controlled = 0;
+			for (Kingdom kingdom : game.getMap().getKingdoms()) {
+				int count = 0;
+				for (Castle castle : kingdom.getCastles()) {
+					if (castle.getOwner() == player)
+						count++;
+				}
+
+				assertEquals(count, kingdom.getCastleCount(player));
+				if (count == kingdom.getCastles().size()) {
+					assertSame(player, kingdom.getOwner());
+					controlled++;
+				} else {
+					assertNotSame(player, kingdom.getOwner());
+				}
+			}
+			assertEquals(controlled, game.getControlledKingdoms(player));
+		}
+	}
+
+	private static void assertStateEquals(GameState expected, GameState actual) {
+		assertEquals(expected.getCastleCount(), actual.getCastleCount());
+		assertEquals(expected.getPlayerCount(), actual.getPlayerCount());
+		for (int i = 0; i < expected.getCastleCount(); i++) {
+			assertEquals("Besitzer von Burg " + i, expected.getOwner(i), actual.getOwner(i));
+			assertEquals("Truppen von Burg " + i, expected.getTroops(i), actual.getTroops(i));
+		}
+		for (int i = 0; i < expected.getPlayerCount(); i++) {
+			assertEquals(expected.getRemainingTroops(i), actual.getRemainingTroops(i));
+			assertEquals(expected.getPoints(i), actual.getPoints(i));
+		}
+		assertEquals(expected.getRound(), actual.getRound());
+		assertEquals(expected.getCurrentPlayer(), actual.getCurrentPlayer());
+	}
+
+	/**
+	 * Setzt oder verschiebt eine Truppe des aktuellen Spielers, jeder Aufruf speichert einen Punkt zum Rückgängigmachen
+	 */
+	private void moveOneTroop() {
+		Player player = game.getCurrentPlayer();
+		List<Castle> castles = player.getCastles(game);
+		Castle first = castles.get(0);
+		Castle second = castles.get(1);
+		if (player.getRemainingTroops() > 0)
+			game.addTroops(player, first, 1);
+		else if (first.getTroopCount() > 1)
+			game.moveTroops(first, second, 1);
+		else
+			game.moveTroops(second, first, 1);
+	}
+
+	@Test
+	public void testPlayerCastlesAfterConquests() {
+		assertPlayerIndices();
+		for (int i = 0; i < 1000; i++) {
+			randomConquest();
+			if (i % 50 == 0)
+				assertPlayerIndices();
+		}
+		assertPlayerIndices();
+	}
+
+	@Test
+	public void testKingdomOwnersAfterConquests() {
+		assertKingdomCounters();
+		for (int i = 0; i < 1000; i++) {
+			randomConquest();
+			if (i % 50 == 0)
+				assertKingdomCounters();
+		}
+		assertKingdomCounters();
+	}
+
+	@Test
+	public void testApplyStateRoundTrip() {
+		for (int i = 0; i < 200; i++)
+			randomConquest();
+		GameState before = game.exportState();
+
+		// Every castle to the first player, so every kingdom changes its owner
+		GameState conquered = before.copy();
+		for (int i = 0; i < conquered.getCastleCount(); i++)
+			conquered.setOwner(i, 0);
+
+		gameInterface.kingdomOwnerChanges = 0;
+		game.applyState(conquered);
+		assertStateEquals(conquered, game.exportState());
+		assertEquals(game.getMap().getKingdoms().size(), game.getControlledKingdoms(game.getPlayers().get(0)));
+		assertPlayerIndices();
+		assertKingdomCounters();
+
+		game.applyState(before);
+		assertStateEquals(before, game.exportState());
+		assertPlayerIndices();
+		assertKingdomCounters();
+
+		// The interface only gets onUpdate, the log would otherwise fill with every kingdom
+		assertEquals(0, gameInterface.kingdomOwnerChanges);
+	}
+
+	@Test
+	public void testStateCopyIsolated() {
+		GameState state = game.exportState();
+		GameState copy = state.copy();
+		copy.setOwner(0, GameState.NO_OWNER);
+		copy.setTroops(1, 42);
+		copy.setPoints(1, 7);
+		copy.setRound(9);
+
+		assertStateEquals(game.exportState(), state);
+		assertEquals(42, copy.getTroops(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testApplyStateWrongSize() {
+		game.applyState(new GameState(1, game.getPlayers().size()));
+	}
+
+	@Test
+	public void testUndoSteps() {
+		assertFalse(game.canUndo());
+
+		List<GameState> history = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			history.add(game.exportState());
+			moveOneTroop();
+		}
+
+		for (int i = history.size() - 1; i >= 0; i--) {
+			assertTrue(game.canUndo());
+			game.undo();
+			assertStateEquals(history.get(i), game.exportState());
+		}
+		assertFalse(game.canUndo());
+	}
+
+	@Test
+	public void testUndoLimit() {
+		List<GameState> history = new ArrayList<>();
+		int steps = GameConstants.UNDO_LIMIT + 10;
+		for (int i = 0; i < steps; i++) {
+			history.add(game.exportState());
+			moveOneTroop();
+		}
+
+		int undos = 0;
+		while (game.canUndo()) {
+			game.undo();
+			undos++;
+		}
+
+		assertEquals(GameConstants.UNDO_LIMIT, undos);
+		assertStateEquals(history.get(steps - GameConstants.UNDO_LIMIT), game.exportState());
+	}
+
+	@Test
+	public void testAttackClearsUndo() {
+		moveOneTroop();
+		assertTrue(game.canUndo());
+		randomConquest();
+		assertFalse(game.canUndo());
+	}
+
+	@Test
+	public void testSnapshotRestore() {
+		GameSnapshot snapshot = game.snapshot();
+		GameState before = game.exportState();
+		for (int i = 0; i < 100; i++)
+			randomConquest();
+
+		game.restore(snapshot);
+		assertStateEquals(before, game.exportState());
+		assertStateEquals(before, snapshot.toGameState());
+	}
+
+	@Test
+	public void testSnapshotBranchIsolated() {
+		GameSnapshot snapshot = game.snapshot();
+		GameState before = snapshot.toGameState();
+
+		GameSnapshot branch = snapshot.branch();
+		branch.setOwner(0, 1 - Math.max(0, before.getOwner(0)));
+		branch.setTroops(before.getCastleCount() - 1, 99);
+		branch.setPoints(0, 12345);
+		branch.setRound(7);
+
+		assertStateEquals(before, snapshot.toGameState());
+		assertStateEquals(before, game.exportState());
+		assertEquals(99, branch.getTroops(before.getCastleCount() - 1));
+		assertEquals(7, branch.getRound());
+	}
+
+	@Test
+	public void testChunkedIntArraySharesChunks() {
+		int length = 3 * ChunkedIntArray.CHUNK_SIZE + 5;
+		ChunkedIntArray array = new ChunkedIntArray(length);
+		for (int i = 0; i < length; i++)
+			array.set(i, i);
+
+		ChunkedIntArray copy = array.snapshot();
+		assertEquals(4, copy.getChunkCount());
+		for (int chunk = 0; chunk < copy.getChunkCount(); chunk++)
+			assertTrue(copy.sharesChunk(array, chunk));
+
+		// Writing the same value keeps the chunk shared
+		copy.set(1, 1);
+		assertTrue(copy.sharesChunk(array, 0));
+
+		copy.set(ChunkedIntArray.CHUNK_SIZE + 1, -1);
+		assertFalse(copy.sharesChunk(array, 1));
+		assertTrue(copy.sharesChunk(array, 0));
+		assertTrue(copy.sharesChunk(array, 2));
+		assertEquals(ChunkedIntArray.CHUNK_SIZE + 1, array.get(ChunkedIntArray.CHUNK_SIZE + 1));
+		assertEquals(-1, copy.get(ChunkedIntArray.CHUNK_SIZE + 1));
+
+		// The original has to copy its chunks as well before writing
+		array.set(length - 1, -2);
+		assertFalse(copy.sharesChunk(array, 3));
+		assertEquals(length - 1, copy.get(length - 1));
+		assertEquals(-2, array.get(length - 1));
+	}
+}
@@ -0,0 +1,224 @@
+package tests.student;
+
+import game.Game;
+import game.GameConstants;
+import game.GameInterface;
+import game.GameState;
+import game.Goal;
+import game.Player;
+import game.goals.ConquerGoal;
+import game.goals.KingdomGoal;
+import game.goals.PointsGoal;
+import game.goals.RoundLimitGoal;
+import game.map.Castle;
+import game.map.EdgeMode;
+import game.map.GameMap;
+import game.map.Kingdom;
+import game.players.Human;
+import java.awt.Color;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+// tests für die Spielziele
+
+
+public class GoalTest {
+
+	private static final long SEED = 815L;
+	private static final int KINGDOMS = 4;
+
+	/**
+	 * Eine Oberfläche, die sich nur den Gewinner bei Spielende merkt
+	 */
+	private static class GameOverInterface implements GameInterface {
+		boolean over;
+		Player winner;
+
+		public void onAttackStopped() {}
+		public void onAttackStarted(Castle source, Castle target, int troopCount) {}
+		public void onCastleChosen(Castle castle, Player player) {}
+		public void onNextTurn(Player currentPlayer, int troopsGot, boolean human) {}
+		public void onNewRound(int round) {}
+		public void onGameStarted(Game game) {}
+		public void onConquer(Castle castle, Player player) {}
+		public void onUpdate() {}
+		public void onAddScore(Player player, int score) {}
+
+		public int[] onRoll(Player player, int dices, boolean fastForward) {
+			return new int[dices];
+		}
+
+		public void onGameOver(Player winner) {
+			this.over = true;
+			this.winner = winner;
+		}
+	}
+
+	private Game game;
+	private GameOverInterface gameInterface;
+	private Player first, second;
+
+	/**
+	 * Startet ein Spiel mit dem Spielziel und wählt die ersten Burgen, danach läuft die zweite Runde
+	 */
+	private void start(Goal goal) {
+		game = new Game();
+		first = Player.createPlayer(Human.class, "Spieler 1", Color.RED);
+		second = Player.createPlayer(Human.class, "Spieler 2", Color.BLUE);
+		game.addPlayer(first);
+		game.addPlayer(second);
+		game.setGoal(goal);
+		game.setMap(GameMap.generateRandomMap(30, 20, 40, 60, KINGDOMS, EdgeMode.GABRIEL, SEED));
+		gameInterface = new GameOverInterface();
+		game.start(gameInterface);
+
+		List<Castle> castles = game.getMap().getCastles();
+		while (game.getRound() == 1) {
+			for (Castle castle : castles) {
+				if (castle.getOwner() == null) {
+					game.chooseCastle(castle, game.getCurrentPlayer());
+					break;
+				}
+			}
+		}
+	}
+
+	private int index(Player player) {
+		return game.getPlayers().indexOf(player);
+	}
+
+	/**
+	 * Gibt die Burgen der ersten Königreiche dem ersten Spieler, alle anderen Burgen dem zweiten
+	 */
+	private GameState withKingdoms(GameState state, int kingdoms) {
+		GameState result = state.copy();
+		List<Castle> castles = game.getMap().getCastles();
+		List<Kingdom> allKingdoms = game.getMap().getKingdoms();
+		for (int i = 0; i < castles.size(); i++) {
+			boolean firstOwns = allKingdoms.indexOf(castles.get(i).getKingdom()) < kingdoms;
+			result.setOwner(i, index(firstOwns ? first : second));
+			result.setTroops(i, 1);
+		}
+		return result;
+	}
+
+	@Test
+	public void testConquerGoal() {
+		Goal goal = new ConquerGoal();
+		start(goal);
+		GameState before = game.exportState();
+		assertFalse(goal.isCompleted());
+
+		game.applyState(withKingdoms(before, KINGDOMS));
+		assertTrue(goal.isCompleted());
+		assertSame(first, goal.getWinner());
+		assertTrue(goal.hasLost(second));
+		assertFalse(goal.hasLost(first));
+
+		// Losing a single castle reopens the game
+		game.applyState(withKingdoms(before, KINGDOMS - 1));
+		assertFalse(goal.isCompleted());
+		assertNull(goal.getWinner());
+		assertFalse(goal.hasLost(second));
+
+		game.applyState(withKingdoms(before, KINGDOMS));
+		game.nextTurn();
+		assertTrue(gameInterface.over);
+		assertSame(first, gameInterface.winner);
+	}
+
+	@Test
+	public void testKingdomGoal() {
+		Goal goal = new KingdomGoal();
+		start(goal);
+		GameState before = game.exportState();
+		int required = KINGDOMS / 2 + 1;
+
+		game.applyState(withKingdoms(before, required - 1));
+		assertFalse(goal.isCompleted());
+		assertNull(goal.getWinner());
+
+		game.applyState(withKingdoms(before, required));
+		assertTrue(goal.isCompleted());
+		assertSame(first, goal.getWinner());
+
+		// The other player controls the majority now
+		game.applyState(withKingdoms(before, KINGDOMS - required));
+		assertSame(second, goal.getWinner());
+
+		game.applyState(before);
+		assertFalse(goal.isCompleted());
+	}
+
+	@Test
+	public void testPointsGoal() {
+		Goal goal = new PointsGoal();
+		start(goal);
+		GameState before = game.exportState();
+		assertFalse(goal.isCompleted());
+
+		GameState state = before.copy();
+		state.setPoints(index(first), GameConstants.POINTS_GOAL);
+		game.applyState(state);
+		assertSame(first, goal.getWinner());
+
+		state.setPoints(index(second), GameConstants.POINTS_GOAL + 10);
+		game.applyState(state);
+		assertSame(first, goal.getWinner());
+
+		// Rolling back the points of the winner leaves the other player, who also reached the goal
+		state.setPoints(index(first), GameConstants.POINTS_GOAL - 1);
+		game.applyState(state);
+		assertSame(second, goal.getWinner());
+
+		game.applyState(before);
+		assertFalse(goal.isCompleted());
+		assertNull(goal.getWinner());
+	}
+
+	@Test
+	public void testPointsGoalAfterUndo() {
+		Goal goal = new PointsGoal();
+		start(goal);
+		Player player = game.getCurrentPlayer();
+		Castle castle = player.getCastles(game).get(0);
+
+		game.addTroops(player, castle, 1);
+		game.addScore(player, GameConstants.POINTS_GOAL);
+		assertSame(player, goal.getWinner());
+
+		game.undo();
+		assertFalse(goal.isCompleted());
+	}
+
+	@Test
+	public void testRoundLimitGoal() {
+		Goal goal = new RoundLimitGoal();
+		start(goal);
+		GameState before = game.exportState();
+
+		GameState state = before.copy();
+		state.setRound(GameConstants.ROUND_LIMIT);
+		state.setPoints(index(first), 100);
+		state.setPoints(index(second), 50);
+		game.applyState(state);
+		assertFalse(goal.isCompleted());
+		assertNull(goal.getWinner());
+
+		state.setRound(GameConstants.ROUND_LIMIT + 1);
+		game.applyState(state);
+		assertTrue(goal.isCompleted());
+		assertSame(first, goal.getWinner());
+
+		// A tie has no winner
+		state.setPoints(index(second), 100);
+		game.applyState(state);
+		assertTrue(goal.isCompleted());
+		assertNull(goal.getWinner());
+
+		// Rolling back the round reopens the game
+		game.applyState(before);
+		assertFalse(goal.isCompleted());
+	}
+}
@@ -1,5 +1,141 @@
 package tests.student;
 
+import base.Delaunay;
+import game.map.Castle;
+import game.map.EdgeMode;
+import game.map.GameMap;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+// tests für die Verbindungen zwischen den Burgen
+
+
 public class GraphConnectionTest {
 
+	private static final int POINTS = 500;
+	private static final long[] SEEDS = { 1L, 42L, 1234567L };
+
+	private static double[][] randomPoints(long seed) {
+		Random random = new Random(seed);
+		double[] xs = new double[POINTS];
+		double[] ys = new double[POINTS];
+		for (int i = 0; i < POINTS; i++) {
+			xs[i] = random.nextDouble() * 1000;
+			ys[i] = random.nextDouble() * 1000;
+		}
+		return new double[][] { xs, ys };
+	}
+
+	private static int find(int[] parent, int i) {
+		while (parent[i] != i)
+			i = parent[i] = parent[parent[i]];
+		return i;
+	}
+
+	/**
+	 * Zählt die Zusammenhangskomponenten der ausgewählten Kanten
+	 * @param gabriel true für Gabriel-Kanten, false für Kanten des Relative Neighbourhood Graph
+	 */
+	private static int components(Delaunay delaunay, int n, boolean gabriel) {
+		int[] parent = new int[n];
+		for (int i = 0; i < n; i++)
+			parent[i] = i;
+
+		int components = n;
+		for (int e = 0; e < delaunay.getEdgeCount(); e++) {
+			if (gabriel ? !delaunay.isGabrielEdge(e) : !delaunay.isRelativeNeighbourEdge(e))
+				continue;
+
+			int a = find(parent, delaunay.getEdgeStart(e));
+			int b = find(parent, delaunay.getEdgeEnd(e));
+			if (a != b) {
+				parent[a] = b;
+				components--;
+			}
+		}
+		return components;
+	}
+
+	@Test
+	public void testDelaunayContainsNearestNeighbours() {
+		for (long seed : SEEDS) {
+			double[][] points = randomPoints(seed);
+			Delaunay delaunay = new Delaunay(points[0], points[1]);
+			assertTrue(delaunay.getEdgeCount() <= 3 * POINTS - 6);
+
+			int[] nearest = new int[POINTS];
+			for (int i = 0; i < POINTS; i++) {
+				double best = Double.MAX_VALUE;
+				for (int j = 0; j < POINTS; j++) {
+					double d = Math.hypot(points[0][i] - points[0][j], points[1][i] - points[1][j]);
+					if (i != j && d < best) {
+						best = d;
+						nearest[i] = j;
+					}
+				}
+			}
+
+			boolean[] found = new boolean[POINTS];
+			for (int e = 0; e < delaunay.getEdgeCount(); e++) {
+				int a = delaunay.getEdgeStart(e);
+				int b = delaunay.getEdgeEnd(e);
+				if (nearest[a] == b)
+					found[a] = true;
+				if (nearest[b] == a)
+					found[b] = true;
+
+				// The nearest neighbour edge is part of every subgraph
+				if (nearest[a] == b || nearest[b] == a) {
+					assertTrue(delaunay.isGabrielEdge(e));
+					assertTrue(delaunay.isRelativeNeighbourEdge(e));
+				}
+			}
+
+			for (int i = 0; i < POINTS; i++)
+				assertTrue("Kante zum nächsten Nachbarn fehlt: " + i, found[i]);
+		}
+	}
+
+	@Test
+	public void testNeighbourhoodGraphsConnected() {
+		for (long seed : SEEDS) {
+			double[][] points = randomPoints(seed);
+			Delaunay delaunay = new Delaunay(points[0], points[1]);
+			for (int e = 0; e < delaunay.getEdgeCount(); e++) {
+				if (delaunay.isRelativeNeighbourEdge(e))
+					assertTrue(delaunay.isGabrielEdge(e));
+			}
+
+			assertEquals(1, components(delaunay, POINTS, true));
+			assertEquals(1, components(delaunay, POINTS, false));
+		}
+	}
+
+	@Test
+	public void testGeneratedMapsConnected() {
+		EdgeMode[] modes = { EdgeMode.DELAUNAY, EdgeMode.GABRIEL, EdgeMode.RELATIVE_NEIGHBOURHOOD };
+		for (EdgeMode mode : modes) {
+			for (long seed : SEEDS) {
+				GameMap map = GameMap.generateRandomMap(30, 20, 40, 60, 3, mode, seed);
+				assertTrue(mode + " " + seed, map.getGraph().allNodesConnected());
+				for (Castle castle : map.getCastles())
+					assertFalse(map.getGraph().getEdges(map.getGraph().getNode(castle)).isEmpty());
+			}
+		}
+	}
+
+	@Test
+	public void testRadiusMapsRepaired() {
+		for (long seed : SEEDS) {
+			GameMap map = GameMap.generateRandomMap(30, 20, 40, 60, 3, EdgeMode.RADIUS, seed);
+			assertTrue(String.valueOf(seed), map.getGraph().allNodesConnected());
+
+			// At this size radius edges alone do not connect the map, the missing edges are added instead
+			long added = map.getGenerationReport().getStage("connectComponents").getCounts().get("edges");
+			assertTrue(added > 0);
+			assertEquals(60, map.getCastles().size());
+			assertTrue(map.getEdges().size() >= map.getCastles().size() - 1);
+		}
+	}
 }
@@ -0,0 +1,154 @@
+package tests.student;
+
+import base.Edge;
+import game.map.Castle;
+import game.map.EdgeMode;
+import game.map.GameMap;
+import game.map.Kingdom;
+import game.map.MapFile;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+// tests für das Speichern und Laden von Karten
+
+
+public class MapFileTest {
+
+	private static final long SEED = 20240611L;
+
+	// Magic, version, width, height, scale and seed in front of the kingdoms
+	private static final int KINGDOM_COUNT_OFFSET = 26;
+
+	private static GameMap generate() {
+		return GameMap.generateRandomMap(40, 27, 40, 120, 3, EdgeMode.GABRIEL, SEED);
+	}
+
+	private static List<String> describe(GameMap map) {
+		List<String> lines = new ArrayList<>();
+		List<Castle> castles = map.getCastles();
+		for (Castle castle : castles)
+			lines.add(castle.getName() + " " + castle.getLocationOnMap() + " "
+					+ map.getKingdoms().indexOf(castle.getKingdom()));
+
+		for (Edge<Castle> edge : map.getEdges())
+			lines.add(castles.indexOf(edge.getNodeA().getValue()) + "-" + castles.indexOf(edge.getNodeB().getValue()));
+
+		for (Kingdom kingdom : map.getKingdoms())
+			lines.add("kingdom " + kingdom.getType() + " " + kingdom.getCastles().size());
+
+		return lines;
+	}
+
+	private static BufferedImage tile(GameMap map, int column, int row) throws InterruptedException {
+		CountDownLatch latch = new CountDownLatch(1);
+		BufferedImage tile = map.getBackgroundTiles().getTile(column, row, latch::countDown);
+		if (tile != null)
+			return tile;
+
+		assertTrue(latch.await(30, TimeUnit.SECONDS));
+		return map.getBackgroundTiles().getTile(column, row, null);
+	}
+
+	/**
+	 * Speichert eine Karte, überschreibt eine Zahl in der Datei und lädt sie wieder
+	 */
+	private static void readWithInt(GameMap map, int offset, int value) throws IOException {
+		Path path = Files.createTempFile("map", MapFile.FILE_EXTENSION);
+		try {
+			MapFile.write(map, path);
+			try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+				file.seek(offset);
+				file.writeInt(value);
+			}
+			MapFile.read(path);
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException, InterruptedException {
+		GameMap map = generate();
+		Path path = Files.createTempFile("map", MapFile.FILE_EXTENSION);
+		try {
+			MapFile.write(map, path);
+			GameMap loaded = MapFile.read(path);
+
+			assertEquals(map.getSeed(), loaded.getSeed());
+			assertEquals(map.getWidth(), loaded.getWidth());
+			assertEquals(map.getHeight(), loaded.getHeight());
+			assertEquals(describe(map), describe(loaded));
+			assertTrue(loaded.getGraph().allNodesConnected());
+
+			BufferedImage expected = tile(map, 0, 0);
+			BufferedImage actual = tile(loaded, 0, 0);
+			assertEquals(expected.getWidth(), actual.getWidth());
+			assertEquals(expected.getHeight(), actual.getHeight());
+			for (int y = 0; y < expected.getHeight(); y++) {
+				for (int x = 0; x < expected.getWidth(); x++)
+					assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+			}
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncatedFile() throws IOException {
+		Path path = Files.createTempFile("map", MapFile.FILE_EXTENSION);
+		try {
+			MapFile.write(generate(), path);
+			try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+				file.setLength(file.length() / 2);
+			}
+			MapFile.read(path);
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testInvalidFile() throws IOException {
+		Path path = Files.createTempFile("map", MapFile.FILE_EXTENSION);
+		try {
+			Files.write(path, "keine Karte".getBytes());
+			MapFile.read(path);
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testHugeKingdomCount() throws IOException {
+		readWithInt(generate(), KINGDOM_COUNT_OFFSET, Integer.MAX_VALUE);
+	}
+
+	@Test(expected = IOException.class)
+	public void testHugeCastleCount() throws IOException {
+		GameMap map = generate();
+		readWithInt(map, KINGDOM_COUNT_OFFSET + 4 + 4 * map.getKingdoms().size(), Integer.MAX_VALUE - 7);
+	}
+
+	@Test(expected = IOException.class)
+	public void testHugeNameLength() throws IOException {
+		GameMap map = generate();
+
+		// Position, kingdom and name length of the first castle follow the castle count
+		int castleOffset = KINGDOM_COUNT_OFFSET + 4 + 4 * map.getKingdoms().size() + 4;
+		readWithInt(map, castleOffset + 12, Integer.MAX_VALUE);
+	}
+
+	@Test(expected = IOException.class)
+	public void testNegativeKingdomCount() throws IOException {
+		readWithInt(generate(), KINGDOM_COUNT_OFFSET, -1);
+	}
+}
@@ -0,0 +1,64 @@
+package tests.student;
+
+import base.Edge;
+import game.map.Castle;
+import game.map.EdgeMode;
+import game.map.GameMap;
+import game.map.Kingdom;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+// tests für die Generierung von Karten
+
+
+public class MapGenerationTest {
+
+	private static final long SEED = 20240611L;
+
+	private static GameMap generate(long seed) {
+		return GameMap.generateRandomMap(40, 27, 40, 120, 3, EdgeMode.GABRIEL, seed);
+	}
+
+	/**
+	 * Beschreibt Burgen, Kanten und Königreiche einer Karte, sodass zwei Karten mit assertEquals verglichen
+	 * werden können
+	 */
+	private static List<String> describe(GameMap map) {
+		List<String> lines = new ArrayList<>();
+		List<Castle> castles = map.getCastles();
+		for (Castle castle : castles)
+			lines.add(castle.getName() + " " + castle.getLocationOnMap() + " "
+					+ map.getKingdoms().indexOf(castle.getKingdom()));
+
+		for (Edge<Castle> edge : map.getEdges())
+			lines.add(castles.indexOf(edge.getNodeA().getValue()) + "-" + castles.indexOf(edge.getNodeB().getValue()));
+
+		for (Kingdom kingdom : map.getKingdoms())
+			lines.add("kingdom " + kingdom.getType() + " " + kingdom.getCastles().size());
+
+		return lines;
+	}
+
+	@Test
+	public void testSameSeedSameMap() {
+		GameMap first = generate(SEED);
+		GameMap second = generate(SEED);
+		assertEquals(SEED, first.getSeed());
+		assertEquals(describe(first), describe(second));
+	}
+
+	@Test
+	public void testDifferentSeedDifferentMap() {
+		assertNotEquals(describe(generate(SEED)), describe(generate(SEED + 1)));
+	}
+
+	@Test
+	public void testCastleCountReached() {
+		for (long seed = 0; seed < 5; seed++) {
+			GameMap map = GameMap.generateRandomMap(60, 40, 40, 300, 3, EdgeMode.GABRIEL, seed);
+			assertEquals(300, map.getCastles().size());
+		}
+	}
+}
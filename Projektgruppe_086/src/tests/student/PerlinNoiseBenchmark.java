@@ -0,0 +1,70 @@
+package tests.student;
+
+import base.PerlinNoise;
+
+import java.util.Random;
+
+/**
+ * Compares the scalar loop and the lane kernel of {@link PerlinNoise#getNoiseRow(int, int, int, double[], int)}.
+ * Run with: java tests.student.PerlinNoiseBenchmark [width] [height] [scale]
+ */
+public class PerlinNoiseBenchmark {
+
+    private static final int WARMUP_RUNS = 5;
+    private static final int RUNS = 10;
+    private static final double EPSILON = 1e-12;
+
+    public static void main(String[] args) {
+        int width = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int height = args.length > 1 ? Integer.parseInt(args[1]) : 150;
+        int scale = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+
+        PerlinNoise noise = new PerlinNoise(width, height, scale, new Random(0));
+        int pixelsX = width * scale;
+        int pixelsY = height * scale;
+        double[] scalar = new double[pixelsX];
+        double[] lanes = new double[pixelsX];
+
+        // Both kernels have to produce the same values
+        double maxError = 0;
+        for (int y = 0; y < pixelsY; y += 17) {
+            noise.setLaneKernel(false);
+            noise.getNoiseRow(0, y, pixelsX, scalar, 0);
+            noise.setLaneKernel(true);
+            noise.getNoiseRow(0, y, pixelsX, lanes, 0);
+            for (int x = 0; x < pixelsX; x++)
+                maxError = Math.max(maxError, Math.abs(scalar[x] - lanes[x]));
+        }
+
+        System.out.println(String.format("%d x %d pixels, max. difference %.3g", pixelsX, pixelsY, maxError));
+        if (maxError > EPSILON) {
+            System.out.println("ERROR: lane kernel differs from the scalar loop");
+            return;
+        }
+
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            run(noise, false, scalar, pixelsY);
+            run(noise, true, lanes, pixelsY);
+        }
+
+        long scalarNanos = Long.MAX_VALUE, laneNanos = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            scalarNanos = Math.min(scalarNanos, run(noise, false, scalar, pixelsY));
+            laneNanos = Math.min(laneNanos, run(noise, true, lanes, pixelsY));
+        }
+
+        double pixels = (double) pixelsX * pixelsY;
+        System.out.println(String.format("scalar: %8.2f ms (%.2f ns/pixel)", scalarNanos / 1e6, scalarNanos / pixels));
+        System.out.println(String.format("lanes:  %8.2f ms (%.2f ns/pixel)", laneNanos / 1e6, laneNanos / pixels));
+        System.out.println(String.format("speedup: %.2fx", (double) scalarNanos / laneNanos));
+    }
+
+    private static long run(PerlinNoise noise, boolean laneKernel, double[] row, int rows) {
+        noise.setLaneKernel(laneKernel);
+        long start = System.nanoTime();
+        for (int y = 0; y < rows; y++)
+            noise.getNoiseRow(0, y, row.length, row, 0);
+
+        return System.nanoTime() - start;
+    }
+}
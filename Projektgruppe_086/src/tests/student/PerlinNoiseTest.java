@@ -0,0 +1,192 @@
+package tests.student;
+
+import base.PerlinNoise;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+// tests für das Rauschen des Hintergrunds
+
+
+public class PerlinNoiseTest {
+
+	private static final int WIDTH = 13;
+	private static final int HEIGHT = 9;
+	private static final int SCALE = 40;
+	private static final long SEED = 99L;
+	private static final double EPSILON = 1e-12;
+
+	/**
+	 * Das ursprüngliche Verfahren, die Gradienten werden wie in PerlinNoise aus dem Startwert gezogen
+	 */
+	private static class ReferenceNoise {
+		private final double[] gradientsX;
+		private final double[] gradientsY;
+
+		ReferenceNoise(long seed) {
+			Random random = new Random(seed);
+			int n = (WIDTH + 1) * (HEIGHT + 1);
+			gradientsX = new double[n];
+			gradientsY = new double[n];
+			for (int i = 0; i < n; i++) {
+				double angle = random.nextDouble() * 2 * Math.PI;
+				gradientsX[i] = Math.cos(angle);
+				gradientsY[i] = Math.sin(angle);
+			}
+		}
+
+		private static double fade(double t) {
+			return (((6 * (t * t * t * t * t)) - (15 * t * t * t * t)) + (10 * t * t * t));
+		}
+
+		private static double lerp(double a, double b, double w) {
+			return ((1.0 - w) * a + w * b);
+		}
+
+		private double dot(double dx, double dy, int x, int y) {
+			int i = x + y * (WIDTH + 1);
+			return dx * gradientsX[i] + dy * gradientsY[i];
+		}
+
+		double getNoise(double x, double y) {
+			double scaledX = x / SCALE;
+			double scaledY = y / SCALE;
+			int xlo = (int) scaledX;
+			int ylo = (int) scaledY;
+
+			double dx = scaledX - xlo;
+			double dy = scaledY - ylo;
+			double top = lerp(dot(dx, dy, xlo, ylo), dot(dx - 1, dy, xlo + 1, ylo), fade(dx));
+			double bottom = lerp(dot(dx, dy - 1, xlo, ylo + 1), dot(dx - 1, dy - 1, xlo + 1, ylo + 1), fade(dx));
+			return (lerp(top, bottom, fade(dy)) + 1.0) / 2.0;
+		}
+	}
+
+	private static PerlinNoise createNoise() {
+		return new PerlinNoise(WIDTH, HEIGHT, SCALE, new Random(SEED));
+	}
+
+	@Test
+	public void testMatchesOriginalAlgorithm() {
+		ReferenceNoise reference = new ReferenceNoise(SEED);
+		PerlinNoise noise = createNoise();
+		for (int y = 0; y < HEIGHT * SCALE; y += 3) {
+			for (int x = 0; x < WIDTH * SCALE; x++) {
+				double expected = reference.getNoise(x, y);
+				assertEquals(expected, noise.getNoise(x, y), EPSILON);
+				assertEquals(expected, noise.getNoise((double) x, (double) y), EPSILON);
+			}
+		}
+	}
+
+	@Test
+	public void testFractionalCoordinates() {
+		ReferenceNoise reference = new ReferenceNoise(SEED);
+		PerlinNoise noise = createNoise();
+		Random random = new Random(1);
+		for (int i = 0; i < 10000; i++) {
+			double x = random.nextDouble() * (WIDTH * SCALE - 1);
+			double y = random.nextDouble() * (HEIGHT * SCALE - 1);
+			assertEquals(reference.getNoise(x, y), noise.getNoise(x, y), EPSILON);
+		}
+	}
+
+	@Test
+	public void testSameSeedSameNoise() {
+		PerlinNoise first = createNoise();
+		PerlinNoise second = createNoise();
+		for (int y = 0; y < HEIGHT * SCALE; y += 7) {
+			for (int x = 0; x < WIDTH * SCALE; x += 5)
+				assertEquals(first.getNoise(x, y), second.getNoise(x, y), 0);
+		}
+	}
+
+	@Test
+	public void testRowMatchesSinglePixels() {
+		PerlinNoise noise = createNoise();
+		noise.setLaneKernel(false);
+
+		// Rows starting and ending inside a cell, plus an offset in the target array
+		double[] row = new double[WIDTH * SCALE + 3];
+		for (int y = 0; y < HEIGHT * SCALE; y += 11) {
+			int x = y % SCALE;
+			int length = WIDTH * SCALE - x - 7;
+			noise.getNoiseRow(x, y, length, row, 3);
+			for (int i = 0; i < length; i++)
+				assertEquals(noise.getNoise(x + i, y), row[3 + i], EPSILON);
+		}
+	}
+
+	@Test
+	public void testTileMatchesSinglePixels() {
+		PerlinNoise noise = createNoise();
+		noise.setLaneKernel(false);
+
+		int x = 17, y = 23, w = 3 * SCALE + 5, h = 50;
+		double[] tile = new double[w * h];
+		noise.getNoiseTile(x, y, w, h, tile);
+		for (int row = 0; row < h; row++) {
+			for (int column = 0; column < w; column++)
+				assertEquals(noise.getNoise(x + column, y + row), tile[row * w + column], EPSILON);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRowOutsideNoise() {
+		createNoise().getNoiseRow(WIDTH * SCALE - 10, 0, 20, new double[20], 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPixelOutsideNoise() {
+		createNoise().getNoise(WIDTH * SCALE, 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativePixel() {
+		createNoise().getNoise(0, -1);
+	}
+
+	@Test
+	public void testLaneKernelMatchesScalarLoop() {
+		PerlinNoise[] noises = { createNoise(), PerlinNoise.createHashed(WIDTH, HEIGHT, SCALE, SEED) };
+		for (PerlinNoise noise : noises) {
+			int w = WIDTH * SCALE - 9;
+			int h = HEIGHT * SCALE - 4;
+			double[] scalar = new double[w * h];
+			double[] lanes = new double[w * h];
+
+			noise.setLaneKernel(false);
+			noise.getNoiseTile(4, 2, w, h, scalar);
+			noise.setLaneKernel(true);
+			noise.getNoiseTile(4, 2, w, h, lanes);
+
+			for (int i = 0; i < scalar.length; i++)
+				assertEquals(scalar[i], lanes[i], EPSILON);
+		}
+	}
+
+	@Test
+	public void testHashedNoiseDoesNotDependOnSize() {
+		PerlinNoise noise = PerlinNoise.createHashed(WIDTH, HEIGHT, SCALE, SEED);
+		PerlinNoise same = PerlinNoise.createHashed(WIDTH, HEIGHT, SCALE, SEED);
+		PerlinNoise resized = noise.resize(2 * WIDTH, 3 * HEIGHT);
+		for (int y = 0; y < HEIGHT * SCALE; y += 5) {
+			for (int x = 0; x < WIDTH * SCALE; x += 3) {
+				assertEquals(noise.getNoise(x, y), same.getNoise(x, y), 0);
+				assertEquals(noise.getNoise(x, y), resized.getNoise(x, y), 0);
+			}
+		}
+
+		// Beyond 256 cells the second byte of the coordinates is hashed as well
+		PerlinNoise wide = PerlinNoise.createHashed(600, 2, 4, SEED);
+		boolean different = false;
+		for (int x = 0; x < 4; x++)
+			different |= wide.getNoise(x + 1, 1) != wide.getNoise(256 * 4 + x + 1, 1);
+		assertTrue(different);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testOnlyHashedNoiseCanBeResized() {
+		createNoise().resize(2 * WIDTH, HEIGHT);
+	}
+}